@@ -0,0 +1,174 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.service.implementation.CouponServiceImpl;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.BitsetSolver;
+import io.github.lzmz.coupon.solver.implementation.BranchAndBoundSolver;
+import io.github.lzmz.coupon.solver.implementation.MatrixSolver;
+import io.github.lzmz.coupon.solver.implementation.MeetInTheMiddleSolver;
+import io.github.lzmz.coupon.solver.implementation.ParallelSolver;
+import io.github.lzmz.coupon.solver.implementation.PlannerSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the engines over a common grid of item counts, coupon amounts and price distributions, both
+ * through {@link CouponServiceImpl#calculate(Map, Float)}, which includes the shrinking of the coupon, and
+ * through {@link CouponSolver#solve(String[], int[], int)} alone.
+ * <p>The allocation rate is reported by the GC profiler, which {@code jmh.args} enables by default.</p>
+ * <p>Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="CouponServiceBenchmark -prof gc"}.
+ * {@link Strategy#MATRIX} and {@link Strategy#MEET_IN_THE_MIDDLE} are left out of the default grid, because
+ * the largest cells would not fit in memory or time. Add them on smaller cells, e.g.
+ * {@code -p engine=MEET_IN_THE_MIDDLE -p itemsNumber=10}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CouponServiceBenchmark {
+
+    /**
+     * The value by which prices are multiplied to consider pennies, as {@link CouponServiceImpl} does.
+     */
+    private static final int DECIMALS = 100;
+
+    /**
+     * How the prices of the items are drawn, in pennies.
+     */
+    public enum Distribution {
+
+        /**
+         * Any price up to the amount of the coupon.
+         */
+        UNIFORM {
+            @Override
+            int price(Random random, int couponValue) {
+                return 1 + random.nextInt(couponValue);
+            }
+        },
+
+        /**
+         * Mostly cheap items and a few expensive ones, like a real cart.
+         */
+        SKEWED {
+            @Override
+            int price(Random random, int couponValue) {
+                double fraction = Math.pow(random.nextDouble(), 4);
+                return 1 + (int) (fraction * (couponValue - 1));
+            }
+        },
+
+        /**
+         * Items close to a tenth of the amount, so that many subsets tie near the best total.
+         */
+        CLUSTERED {
+            @Override
+            int price(Random random, int couponValue) {
+                int center = Math.max(1, couponValue / 10);
+                int spread = Math.max(1, center / 20);
+                return Math.max(1, center - spread + random.nextInt(2 * spread + 1));
+            }
+        };
+
+        abstract int price(Random random, int couponValue);
+    }
+
+    @Param({"10", "100", "1000"})
+    private int itemsNumber;
+
+    @Param({"10", "1000", "100000"})
+    private int amount;
+
+    @Param({"UNIFORM", "SKEWED", "CLUSTERED"})
+    private Distribution distribution;
+
+    @Param({"AUTO", "ROLLING", "BITSET", "BRANCH_AND_BOUND"})
+    private Strategy engine;
+
+    private Map<String, Float> items;
+    private String[] ids;
+    private int[] prices;
+    private int couponValue;
+    private CouponSolver solver;
+    private CouponServiceImpl couponService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        couponValue = amount * DECIMALS;
+        items = new HashMap<>();
+        ids = new String[itemsNumber];
+        prices = new int[itemsNumber];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            ids[item] = "MLA" + item;
+            prices[item] = distribution.price(random, couponValue);
+            items.put(ids[item], (float) prices[item] / DECIMALS);
+        }
+
+        solver = solver(engine);
+        couponService = new CouponServiceImpl(solver, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (solver instanceof ParallelSolver) {
+            ((ParallelSolver) solver).close();
+        }
+    }
+
+    @Benchmark
+    public List<String> calculate() throws InsufficientAmountException {
+        return couponService.calculate(items, (float) amount);
+    }
+
+    @Benchmark
+    public Solution solve() {
+        return solver.solve(ids, prices, couponValue);
+    }
+
+    private static CouponSolver solver(Strategy engine) {
+        switch (engine) {
+            case MATRIX:
+                return new MatrixSolver();
+            case ROLLING:
+                return new RollingSolver();
+            case BITSET:
+                return new BitsetSolver();
+            case PARALLEL:
+                return new ParallelSolver(Runtime.getRuntime().availableProcessors(), 0);
+            case MEET_IN_THE_MIDDLE:
+                return new MeetInTheMiddleSolver();
+            case BRANCH_AND_BOUND:
+                return new BranchAndBoundSolver();
+            case AUTO:
+                return new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver(), new BranchAndBoundSolver());
+            default:
+                throw new IllegalArgumentException(engine + " is not a solver engine");
+        }
+    }
+}
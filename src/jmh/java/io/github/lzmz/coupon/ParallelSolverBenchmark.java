@@ -0,0 +1,80 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.implementation.ParallelSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link RollingSolver} with the {@link ParallelSolver} over growing coupon values, to find
+ * from which value splitting the rows pays off on a given machine. The parallel solver runs with no
+ * threshold, so every coupon is split.
+ * <p>Run with: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ParallelSolverBenchmark -p parallelism=16"}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSolverBenchmark {
+
+    @Param({"50"})
+    private int itemsNumber;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int couponValue;
+
+    @Param({"4", "16"})
+    private int parallelism;
+
+    private String[] ids;
+    private int[] prices;
+    private RollingSolver rollingSolver;
+    private ParallelSolver parallelSolver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new String[itemsNumber];
+        prices = new int[itemsNumber];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            ids[item] = "MLA" + item;
+            prices[item] = 1 + random.nextInt(couponValue / 4);
+        }
+
+        rollingSolver = new RollingSolver();
+        parallelSolver = new ParallelSolver(parallelism, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelSolver.close();
+    }
+
+    @Benchmark
+    public Solution rolling() {
+        return rollingSolver.solve(ids, prices, couponValue);
+    }
+
+    @Benchmark
+    public Solution parallel() {
+        return parallelSolver.solve(ids, prices, couponValue);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.lzmz.coupon;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for the items API: answers single and multi-get calls with a price derived from the item
+ * ID, after the configured latency, and fails the configured share of the calls with a 500.
+ */
+public class ItemsApiStub implements Closeable {
+
+    private static final String PATH = "/items/";
+    private static final String ERROR_BODY = "{\"message\":\"stub failure\",\"error\":\"internal_error\",\"status\":500,\"cause\":[]}";
+
+    private final MockWebServer server = new MockWebServer();
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+
+    public ItemsApiStub() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    /**
+     * Retrieves the URL to configure as {@code coupon.item.base-url}.
+     *
+     * @return the base URL of the stub.
+     */
+    public String getBaseUrl() {
+        return server.url(PATH).toString();
+    }
+
+    /**
+     * Changes the behaviour of the calls received from now on.
+     *
+     * @param latencyMillis the time each call takes before its response starts.
+     * @param errorRate     the share of the calls, between 0 and 1, answered with a 500.
+     */
+    public void configure(long latencyMillis, double errorRate) {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * The price of an item, the same on every call.
+     *
+     * @param id the ID of the item.
+     * @return a price between $0.01 and $500.
+     */
+    private static float price(String id) {
+        return (1 + Math.floorMod(id.hashCode() * 31, 50_000)) / 100F;
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        MockResponse response = new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return response.setResponseCode(500).setBody(ERROR_BODY);
+        }
+
+        HttpUrl url = request.getRequestUrl();
+        String ids = url == null ? null : url.queryParameter("ids");
+
+        if (ids == null) {
+            String id = url == null ? "" : url.pathSegments().get(url.pathSize() - 1);
+            return response.setBody(item(id));
+        }
+
+        StringBuilder body = new StringBuilder("[");
+
+        for (String id : ids.split(",")) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+
+            body.append("{\"code\":200,\"body\":").append(item(id)).append('}');
+        }
+
+        return response.setBody(body.append(']').toString());
+    }
+
+    private static String item(String id) {
+        return "{\"id\":\"" + id + "\",\"price\":" + price(id) + "}";
+    }
+}
@@ -0,0 +1,247 @@
+package io.github.lzmz.coupon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Drives the whole coupon path, Redis and items API calls included, against local stand-ins of both, and
+ * reports the latency percentiles and the throughput of each configuration of the grid.
+ * <p>The endpoints are driven one after the other under each configuration, so the MVC and the reactive
+ * paths are printed side by side. The threads column is the peak of the live threads of the application,
+ * sampled during the measured run, leaving out the clients of the harness and the stand-ins.</p>
+ * <p>Each configuration is run by {@code load.concurrency} clients that send a request as soon as the
+ * previous one is answered, for {@code load.warmup} unmeasured and then {@code load.duration} measured.
+ * The carts are drawn from {@code load.catalog-size} items, so their prices become cached as the test
+ * goes, as in production.</p>
+ * <p>Run with: {@code mvn -Pload-test test-compile exec:exec -Dload.args="-Dload.concurrency=16,64"}.
+ * Every setting is a system property:</p>
+ * <ul>
+ * <li>{@code load.endpoints}: the paths to drive, e.g. {@code /coupon,/coupon/reactive}.</li>
+ * <li>{@code load.concurrency}: the numbers of concurrent clients.</li>
+ * <li>{@code load.latency}: the latencies of the items API stub, in milliseconds.</li>
+ * <li>{@code load.error-rate}: the shares of the calls to the items API stub that fail.</li>
+ * <li>{@code load.cart-sizes}: the numbers of items of a request, drawn uniformly.</li>
+ * <li>{@code load.amounts}: the amounts of a request, drawn uniformly.</li>
+ * <li>{@code load.catalog-size}: the number of distinct items.</li>
+ * <li>{@code load.warmup} and {@code load.duration}: the length of each configuration, in seconds.</li>
+ * <li>{@code load.redis-port}: the port of the Redis stand-in.</li>
+ * </ul>
+ * <p>Any other system property, such as {@code coupon.item.multi-get-size}, configures the application.</p>
+ */
+public class LoadHarness {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final long SAMPLE_PERIOD_MILLIS = 100;
+    private static final String CLIENT_THREAD = "load-client-";
+    private static final String SAMPLER_THREAD = "load-sampler";
+    private static final List<String> HARNESS_THREADS = Arrays.asList(CLIENT_THREAD, SAMPLER_THREAD, "main",
+            "MockWebServer", "OkHttp", "redis-stand-in");
+
+    private final List<String> endpoints = strings("load.endpoints", CouponEndpoint.BASE + "," + CouponEndpoint.BASE + CouponEndpoint.REACTIVE);
+    private final List<Integer> concurrency = integers("load.concurrency", "16,64");
+    private final List<Integer> latency = integers("load.latency", "20");
+    private final List<Double> errorRate = strings("load.error-rate", "0").stream().map(Double::valueOf).collect(Collectors.toList());
+    private final List<Integer> cartSizes = integers("load.cart-sizes", "5,20,50");
+    private final List<Integer> amounts = integers("load.amounts", "500,5000");
+    private final int catalogSize = Integer.getInteger("load.catalog-size", 10_000);
+    private final Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+
+    public static void main(String[] args) throws Exception {
+        new LoadHarness().run(args);
+    }
+
+    private void run(String[] args) throws Exception {
+        try (RedisStandIn redis = new RedisStandIn(Integer.getInteger("load.redis-port", 0));
+             ItemsApiStub items = new ItemsApiStub()) {
+            redis.start();
+            items.start();
+
+            try (ConfigurableApplicationContext application = new SpringApplicationBuilder(CouponApplication.class)
+                    .properties("server.port=0",
+                            "spring.redis.host=localhost",
+                            "spring.redis.port=" + redis.getPort(),
+                            "coupon.item.base-url=" + items.getBaseUrl(),
+                            "logging.level.root=WARN")
+                    .run(args)) {
+                String base = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+                System.out.printf("%-18s %6s %8s %6s %9s %10s %9s %9s %9s %9s %8s  %s%n", "endpoint", "conc", "latency",
+                        "errors", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "threads", "statuses");
+
+                for (double rate : errorRate) {
+                    for (int millis : latency) {
+                        items.configure(millis, rate);
+
+                        for (int clients : concurrency) {
+                            for (String endpoint : endpoints) {
+                                drive(new URL(base + endpoint), clients, warmup);
+                                Result result = drive(new URL(base + endpoint), clients, duration);
+                                System.out.printf("%-18s %6d %6dms %6.3f %9d %10.1f %9.2f %9.2f %9.2f %9.2f %8d  %s%n",
+                                        endpoint, clients, millis, rate, result.histogram.getTotalCount(),
+                                        result.histogram.getTotalCount() / (double) duration.getSeconds(),
+                                        millis(result.histogram, 50), millis(result.histogram, 99),
+                                        millis(result.histogram, 99.9), result.histogram.getMaxValue() / 1000.0,
+                                        result.threads, result.statuses);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends requests from the given number of clients during the given time.
+     *
+     * @param url      the endpoint to call.
+     * @param clients  the number of concurrent clients.
+     * @param duration the time during which requests are sent.
+     * @return the latencies and the status codes of the responses, and the peak of the application threads.
+     */
+    private Result drive(URL url, int clients, Duration duration) throws Exception {
+        AtomicInteger clientNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(clients,
+                runnable -> new Thread(runnable, CLIENT_THREAD + clientNumber.incrementAndGet()));
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, SAMPLER_THREAD));
+        AtomicInteger threads = new AtomicInteger();
+        sampler.scheduleAtFixedRate(() -> threads.accumulateAndGet(applicationThreads(), Math::max),
+                0, SAMPLE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (int client = 0; client < clients; client++) {
+            futures.add(executor.submit(() -> {
+                Result result = new Result();
+
+                while (System.nanoTime() < deadline) {
+                    byte[] body = OBJECT_MAPPER.writeValueAsBytes(nextRequest());
+                    long start = System.nanoTime();
+                    int status = post(url, body);
+                    result.histogram.recordValue(Math.min(HIGHEST_LATENCY_MICROS,
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+                    result.statuses.merge(status, 1, Integer::sum);
+                }
+
+                return result;
+            }));
+        }
+
+        Result total = new Result();
+
+        for (Future<Result> future : futures) {
+            Result result = future.get();
+            total.histogram.add(result.histogram);
+            result.statuses.forEach((status, count) -> total.statuses.merge(status, count, Integer::sum));
+        }
+
+        sampler.shutdownNow();
+        executor.shutdown();
+        total.threads = threads.get();
+        return total;
+    }
+
+    /**
+     * Counts the live threads of the application, leaving out the ones of the harness and of the
+     * stand-ins, which share its JVM.
+     *
+     * @return the number of live application threads.
+     */
+    private static int applicationThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> HARNESS_THREADS.stream().noneMatch(name::startsWith))
+                .count();
+    }
+
+    private CouponCalculateDto nextRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int cartSize = cartSizes.get(random.nextInt(cartSizes.size()));
+        List<String> ids = new ArrayList<>(cartSize);
+
+        for (int item = 0; item < cartSize; item++) {
+            ids.add("MLA" + random.nextInt(catalogSize));
+        }
+
+        return new CouponCalculateDto(ids, (float) amounts.get(random.nextInt(amounts.size())));
+    }
+
+    private static int post(URL url, byte[] body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Accept", "application/json");
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[4096];
+                    while (in.read(buffer) >= 0) {
+                        // The response is drained so that the connection is reused.
+                    }
+                }
+            }
+
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static List<String> strings(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> integers(String property, String defaultValue) {
+        return strings(property, defaultValue).stream().map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * The latencies, in microseconds, the count of each status code and the peak of the application
+     * threads of a run. A status of -1 counts the requests that failed before a response.
+     */
+    private static class Result {
+        private final Histogram histogram = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+        private int threads;
+    }
+}
@@ -0,0 +1,256 @@
+package io.github.lzmz.coupon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process server that speaks enough of the Redis protocol for the commands the application sends:
+ * hashes with expiry, plus the connection and publishing commands. It needs no Redis installation nor
+ * container, so the load test measures the real round trips of the Redis clients on any machine.
+ * <p>Expired keys are dropped when they are next read. Published messages are not delivered.</p>
+ */
+public class RedisStandIn implements Closeable {
+
+    private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+
+    public RedisStandIn(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+    }
+
+    /**
+     * Starts accepting connections, each served by its own daemon thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread connection = new Thread(() -> serve(socket), "redis-stand-in-connection");
+                    connection.setDaemon(true);
+                    connection.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "redis-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Drops every key.
+     */
+    public void flush() {
+        hashes.clear();
+        expiries.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket client = socket;
+             InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+            while (true) {
+                List<String> command = readCommand(in);
+                execute(command, out);
+
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // The client closed the connection.
+        }
+    }
+
+    private void execute(List<String> command, OutputStream out) throws IOException {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+
+        switch (name) {
+            case "PING":
+                writeSimple(out, "PONG");
+                break;
+            case "SELECT":
+            case "CLIENT":
+            case "QUIT":
+                writeSimple(out, "OK");
+                break;
+            case "FLUSHALL":
+            case "FLUSHDB":
+                flush();
+                writeSimple(out, "OK");
+                break;
+            case "INFO":
+                writeBulk(out, "# Server\r\nredis_version:5.0.0\r\n");
+                break;
+            case "PUBLISH":
+                writeInteger(out, 0);
+                break;
+            case "HGET": {
+                Map<String, String> hash = hash(command.get(1));
+                writeBulk(out, hash == null ? null : hash.get(command.get(2)));
+                break;
+            }
+            case "HSET":
+            case "HMSET": {
+                Map<String, String> hash = hashes.computeIfAbsent(command.get(1), key -> new ConcurrentHashMap<>());
+                int added = 0;
+
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    if (hash.put(command.get(i), command.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+
+                if (name.equals("HSET")) {
+                    writeInteger(out, added);
+                } else {
+                    writeSimple(out, "OK");
+                }
+                break;
+            }
+            case "EXPIRE": {
+                boolean exists = hash(command.get(1)) != null;
+
+                if (exists) {
+                    expiries.put(command.get(1), System.currentTimeMillis() + Long.parseLong(command.get(2)) * 1000);
+                }
+
+                writeInteger(out, exists ? 1 : 0);
+                break;
+            }
+            case "TTL": {
+                boolean exists = hash(command.get(1)) != null;
+                Long expiry = expiries.get(command.get(1));
+                long ttl = !exists ? -2 : expiry == null ? -1 : (expiry - System.currentTimeMillis()) / 1000;
+                writeInteger(out, ttl);
+                break;
+            }
+            case "DEL": {
+                int deleted = 0;
+
+                for (String key : command.subList(1, command.size())) {
+                    expiries.remove(key);
+
+                    if (hashes.remove(key) != null) {
+                        deleted++;
+                    }
+                }
+
+                writeInteger(out, deleted);
+                break;
+            }
+            default:
+                writeError(out, "ERR unknown command '" + command.get(0) + "'");
+        }
+    }
+
+    private Map<String, String> hash(String key) {
+        Long expiry = expiries.get(key);
+
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            expiries.remove(key);
+            hashes.remove(key);
+            return null;
+        }
+
+        return hashes.get(key);
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+
+        if (!header.startsWith("*")) {
+            return Arrays.asList(header.trim().split("\\s+"));
+        }
+
+        int arguments = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(arguments);
+
+        for (int i = 0; i < arguments; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] argument = new byte[length];
+            int read = 0;
+
+            while (read < length) {
+                int count = in.read(argument, read, length - read);
+
+                if (count < 0) {
+                    throw new EOFException();
+                }
+
+                read += count;
+            }
+
+            readLine(in);
+            command.add(new String(argument, StandardCharsets.UTF_8));
+        }
+
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int current;
+
+        while ((current = in.read()) != '\n') {
+            if (current < 0) {
+                throw new EOFException();
+            }
+
+            if (current != '\r') {
+                line.append((char) current);
+            }
+        }
+
+        return line.toString();
+    }
+
+    private static void writeSimple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeError(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeInteger(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.lzmz.coupon.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.redis.Item;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded in-memory copy of the item prices cached in Redis, so hot items are not read from Redis on
+ * every request.
+ * <p>When {@code coupon.item.near-cache.invalidation-channel} is set, every price written through this
+ * cache is announced on that channel and the other instances evict their copies of it.</p>
+ */
+@Slf4j
+@Component
+public class ItemNearCache implements MessageListener {
+
+    /**
+     * The name of the cache in the published metrics.
+     */
+    public static final String NAME = "items.near";
+
+    private static final String SEPARATOR = " ";
+
+    private final Cache<String, Float> cache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String invalidationChannel;
+    private final String origin = UUID.randomUUID().toString();
+
+    public ItemNearCache(CouponProperties couponProperties, StringRedisTemplate stringRedisTemplate,
+                         MeterRegistry meterRegistry) {
+        CouponProperties.NearCache nearCache = couponProperties.getItem().getNearCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(nearCache.getMaxEntries())
+                .expireAfterWrite(nearCache.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.invalidationChannel = nearCache.getInvalidationChannel();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    /**
+     * Retrieves the prices of the given items that are kept in memory.
+     *
+     * @param ids the IDs of the items.
+     * @return a map with the ID and price of the items found.
+     */
+    public Map<String, Float> getAllPresent(Collection<String> ids) {
+        return cache.getAllPresent(ids);
+    }
+
+    /**
+     * Keeps the prices of the given items read from Redis.
+     *
+     * @param items the items to keep.
+     */
+    public void putAll(Collection<Item> items) {
+        items.forEach(item -> cache.put(item.getId(), item.getPrice()));
+    }
+
+    /**
+     * Keeps the prices of the given items just written to Redis, and announces them to the other instances.
+     *
+     * @param items the items written.
+     */
+    public void putAllWritten(Collection<Item> items) {
+        putAll(items);
+
+        if (items.isEmpty() || !isInvalidationEnabled()) {
+            return;
+        }
+
+        byte[] channel = bytes(invalidationChannel);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Item item : items) {
+                connection.publish(channel, bytes(origin + SEPARATOR + item.getId()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Evicts the item announced by another instance.
+     *
+     * @param message the message with the origin instance and the ID of the item.
+     * @param pattern the pattern that matched the channel, if any.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] body = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+
+        if (body.length != 2) {
+            log.warn("Ignoring malformed item invalidation");
+            return;
+        }
+
+        if (!origin.equals(body[0])) {
+            cache.invalidate(body[1]);
+        }
+    }
+
+    /**
+     * Checks whether the written prices are announced to the other instances.
+     *
+     * @return {@code true} if an invalidation channel is configured.
+     */
+    public boolean isInvalidationEnabled() {
+        return StringUtils.hasText(invalidationChannel);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
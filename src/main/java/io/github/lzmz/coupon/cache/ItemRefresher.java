@@ -0,0 +1,87 @@
+package io.github.lzmz.coupon.cache;
+
+import io.github.lzmz.coupon.client.ItemClient;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.redis.Item;
+import io.github.lzmz.coupon.redis.ItemRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches again, in the background, the cached prices that are read shortly before they expire, so the
+ * items requested often never miss the cache.
+ */
+@Slf4j
+@Component
+public class ItemRefresher {
+
+    private final ItemClient itemClient;
+    private final ItemRepository itemRepository;
+    private final ItemNearCache itemNearCache;
+    private final long refreshAhead;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter refreshed;
+
+    public ItemRefresher(ItemClient itemClient, ItemRepository itemRepository, ItemNearCache itemNearCache,
+                         CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        this.itemClient = itemClient;
+        this.itemRepository = itemRepository;
+        this.itemNearCache = itemNearCache;
+        this.refreshAhead = couponProperties.getItem().getRefreshAhead().getSeconds();
+        this.refreshed = Counter
+                .builder("coupon.items.cache.refreshed")
+                .description("Item prices fetched again before they expire from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refreshes the given cached items that are about to expire. Returns immediately; the items already
+     * being refreshed are skipped.
+     *
+     * @param items the items read from the cache.
+     * @return a {@link Mono} that completes when the refresh ends, which does not need to be subscribed.
+     */
+    public Mono<Void> refreshExpiring(Collection<Item> items) {
+        if (refreshAhead <= 0) {
+            return Mono.empty();
+        }
+
+        List<String> ids = items
+                .stream()
+                .filter(item -> item.getTimeToLive() != null && item.getTimeToLive() <= refreshAhead)
+                .map(Item::getId)
+                .filter(refreshing::add)
+                .collect(Collectors.toList());
+
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Mono<Void> refresh = itemClient.fetchItems(ids)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(fetched -> {
+                    itemRepository.saveAllInBulk(fetched);
+                    itemNearCache.putAllWritten(fetched);
+                    refreshed.increment(fetched.size());
+                })
+                .doOnError(e -> log.warn("Could not refresh the items {}", ids, e))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> refreshing.removeAll(ids))
+                .then()
+                .cache();
+
+        refresh.subscribe();
+        return refresh;
+    }
+}
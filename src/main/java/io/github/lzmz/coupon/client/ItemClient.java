@@ -0,0 +1,272 @@
+package io.github.lzmz.coupon.client;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.dto.response.ItemMultiGetDto;
+import io.github.lzmz.coupon.dto.response.ItemPriceDto;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.redis.Item;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Client of the external items API.
+ * <p>Concurrent fetches of the same item share a single call: an item requested while another fetch of
+ * it is in flight waits for that fetch instead of calling the API again. The call starts once all the
+ * items it leads are registered, and completes each of them as soon as the item arrives. An item fails
+ * only with the failure of the call that requested it, so a fetch that joined a call for one item is not
+ * failed by another item of that call.</p>
+ * <p>Every call goes through a circuit breaker, which stops calling the API while it keeps failing or
+ * answering slowly, and a bulkhead, which rejects the calls beyond a maximum in flight. Both fail with
+ * {@link ExternalServiceUnavailableException} instead of waiting.</p>
+ */
+@Component
+public class ItemClient {
+
+    private static final String IDS_PARAM = "ids";
+    private static final String ATTRIBUTES_PARAM = "attributes";
+    private static final String ATTRIBUTES = "id,price";
+    private static final ParameterizedTypeReference<List<ItemMultiGetDto>> MULTI_GET_TYPE =
+            new ParameterizedTypeReference<List<ItemMultiGetDto>>() {
+            };
+
+    private final WebClient webClient;
+    private final int fetchConcurrency;
+    private final int multiGetSize;
+    private final Duration responseTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Map<String, Mono<Item>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public ItemClient(WebClient webClient, CouponProperties couponProperties, MeterRegistry meterRegistry,
+                      CircuitBreaker itemCircuitBreaker, Bulkhead itemBulkhead) {
+        this.webClient = webClient;
+        this.fetchConcurrency = couponProperties.getItem().getFetchConcurrency();
+        this.multiGetSize = couponProperties.getItem().getMultiGetSize();
+        this.responseTimeout = couponProperties.getItem().getClient().getResponseTimeout();
+        this.circuitBreaker = itemCircuitBreaker;
+        this.bulkhead = itemBulkhead;
+        this.coalesced = Counter
+                .builder("coupon.items.fetch.coalesced")
+                .description("Item fetches served by a call already in flight for the same item")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the given items, with up to {@code coupon.item.fetch-concurrency} calls in flight. When
+     * {@code coupon.item.multi-get-size} is greater than 1, the items are requested in multi-get calls of
+     * up to that many items each.
+     *
+     * @param ids the IDs of the items to retrieve.
+     * @return a {@link Flux} with the items that have a price, in no particular order.
+     */
+    public Flux<Item> fetchItems(Collection<String> ids) {
+        return Flux.defer(() -> {
+            Map<String, MonoProcessor<Item>> leading = new ConcurrentHashMap<>();
+            List<String> leadingIds = new ArrayList<>();
+            List<Mono<Item>> fetches = new ArrayList<>();
+
+            for (String id : new LinkedHashSet<>(ids)) {
+                MonoProcessor<Item> fetch = MonoProcessor.create();
+                Mono<Item> current = inFlight.putIfAbsent(id, fetch);
+
+                if (current == null) {
+                    leading.put(id, fetch);
+                    leadingIds.add(id);
+                    fetches.add(fetch);
+                } else {
+                    coalesced.increment();
+                    fetches.add(current);
+                }
+            }
+
+            if (!leadingIds.isEmpty()) {
+                fetchItemsNow(leadingIds, leading).subscribe();
+            }
+
+            return Flux.merge(fetches);
+        });
+    }
+
+    /**
+     * Completes the fetch of an item led by a call, unless it is already complete, and stops sharing it.
+     *
+     * @param leading the fetches led by the call, by item ID.
+     * @param id      the ID of the item.
+     * @param signal  the signal that completes the fetch.
+     */
+    private void settle(Map<String, MonoProcessor<Item>> leading, String id, Consumer<MonoProcessor<Item>> signal) {
+        MonoProcessor<Item> fetch = leading.remove(id);
+
+        if (fetch != null) {
+            inFlight.remove(id, fetch);
+            signal.accept(fetch);
+        }
+    }
+
+    /**
+     * Calls the items API for the given items, regardless of the fetches in flight, and completes the
+     * fetch of each item from the outcome of its own call only: a failed call fails the items it
+     * requested, never the ones requested by another call.
+     *
+     * @param ids     the IDs of the items to retrieve.
+     * @param leading the fetches led by the calls, by item ID.
+     * @return a {@link Mono} that completes once every call is over.
+     */
+    private Mono<Void> fetchItemsNow(List<String> ids, Map<String, MonoProcessor<Item>> leading) {
+        if (multiGetSize <= 1) {
+            return Flux.fromIterable(ids)
+                    .flatMap(id -> settle(leading, Collections.singletonList(id), fetchItem(id).flux()), fetchConcurrency)
+                    .then();
+        }
+
+        return Flux.fromIterable(ids)
+                .buffer(multiGetSize)
+                .flatMap(chunk -> settle(leading, chunk, fetchChunk(chunk)), fetchConcurrency)
+                .then();
+    }
+
+    /**
+     * Completes the fetches of the given items from the outcome of the call that requested them: each
+     * item received completes its own fetch, and the end of the call, or its failure, completes the
+     * fetches of the items not received.
+     *
+     * @param leading the fetches led by the calls, by item ID.
+     * @param ids     the IDs of the items requested by the call.
+     * @param call    the call to the items API.
+     * @return a {@link Mono} that completes once the call is over, without its failure.
+     */
+    private Mono<Void> settle(Map<String, MonoProcessor<Item>> leading, List<String> ids, Flux<Item> call) {
+        return call
+                .doOnNext(item -> settle(leading, item.getId(), fetch -> fetch.onNext(item)))
+                .doOnError(error -> ids.forEach(id -> settle(leading, id, fetch -> fetch.onError(error))))
+                .doOnComplete(() -> ids.forEach(id -> settle(leading, id, MonoProcessor::onComplete)))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Retrieves the given item.
+     *
+     * @param id the ID of the item to retrieve.
+     * @return a {@link Mono} with the item, empty if it has no price. Fails with
+     * {@link ExternalServiceTimeoutException} after {@code coupon.item.client.response-timeout}.
+     */
+    public Mono<Item> fetchItem(String id) {
+        return this.webClient
+                .get()
+                .uri(builder -> builder.path(id).build())
+                .retrieve()
+                .bodyToMono(ItemPriceDto.class)
+                .transform(this::guard)
+                .filter(itemPriceDto -> itemPriceDto.getPrice() != null)
+                .map(itemPriceDto -> new Item(id, itemPriceDto.getPrice()));
+    }
+
+    /**
+     * Retrieves the given items in a single multi-get call.
+     *
+     * @param ids the IDs of the items to retrieve.
+     * @return a {@link Flux} with the items found that have a price.
+     */
+    private Flux<Item> fetchChunk(List<String> ids) {
+        return this.webClient
+                .get()
+                .uri(builder -> multiGetUri(builder, ids))
+                .retrieve()
+                .bodyToMono(MULTI_GET_TYPE)
+                .transform(this::guard)
+                .flatMapIterable(entries -> toItems(ids, entries));
+    }
+
+    /**
+     * Bounds the given call in time and runs it through the circuit breaker and the bulkhead.
+     *
+     * @param call the call to the items API.
+     * @param <T>  the type of the response.
+     * @return the guarded call.
+     */
+    private <T> Mono<T> guard(Mono<T> call) {
+        return call
+                .timeout(responseTimeout)
+                .onErrorMap(TimeoutException.class, e -> new ExternalServiceTimeoutException(responseTimeout, e))
+                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(BulkheadOperator.of(bulkhead))
+                .onErrorMap(e -> e instanceof CallNotPermittedException || e instanceof BulkheadFullException,
+                        ExternalServiceUnavailableException::new);
+    }
+
+    /**
+     * Builds the URI of a multi-get call. The multi-get is served by the items collection itself, so the
+     * trailing slash of the base URL, needed by the single-item calls, is dropped.
+     *
+     * @param builder the builder over the base URL.
+     * @param ids     the IDs of the items to retrieve.
+     * @return the URI of the call.
+     */
+    private static URI multiGetUri(UriBuilder builder, List<String> ids) {
+        URI base = builder.build();
+        return UriComponentsBuilder.fromUri(base)
+                .replacePath(StringUtils.trimTrailingCharacter(base.getPath(), '/'))
+                .queryParam(IDS_PARAM, String.join(",", ids))
+                .queryParam(ATTRIBUTES_PARAM, ATTRIBUTES)
+                .encode()
+                .build()
+                .toUri();
+    }
+
+    /**
+     * Pairs the entries of a multi-get response with the requested IDs by the ID of their body, keeping
+     * the items found.
+     *
+     * @param ids     the requested IDs.
+     * @param entries the entries of the response.
+     * @return the items found that have a price.
+     */
+    private static List<Item> toItems(List<String> ids, List<ItemMultiGetDto> entries) {
+        Set<String> requested = new HashSet<>(ids);
+        List<Item> items = new ArrayList<>();
+
+        for (ItemMultiGetDto entry : entries) {
+            ItemPriceDto body = entry.getBody();
+
+            if (entry.getCode() != null && entry.getCode() == HttpStatus.OK.value() && body != null
+                    && body.getId() != null && body.getPrice() != null && requested.remove(body.getId())) {
+                items.add(new Item(body.getId(), body.getPrice()));
+            }
+        }
+
+        return items;
+    }
+}
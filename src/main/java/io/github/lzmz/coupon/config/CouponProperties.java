@@ -0,0 +1,277 @@
+package io.github.lzmz.coupon.config;
+
+import io.github.lzmz.coupon.endpoint.ItemConsumerEndpoint;
+import io.github.lzmz.coupon.solver.Strategy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Application settings under the {@code coupon} prefix.
+ */
+@Getter
+@ConfigurationProperties(prefix = "coupon")
+public class CouponProperties {
+
+    private final Solver solver = new Solver();
+    private final Item item = new Item();
+    private final ResultCache resultCache = new ResultCache();
+    private final Batch batch = new Batch();
+
+    @Getter
+    @Setter
+    public static class Solver {
+
+        /**
+         * The strategy used to solve the coupons.
+         */
+        private Strategy engine = Strategy.AUTO;
+
+        /**
+         * The number of threads of the {@link Strategy#PARALLEL} engine.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The coupon value, in the units of the solver, from which the {@link Strategy#PARALLEL}
+         * engine splits the rows. Smaller coupons are solved on the calling thread.
+         */
+        private int parallelThreshold = 1_000_000;
+
+        /**
+         * The number of threads on which the non-blocking endpoints run the solvers.
+         */
+        private int schedulerThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The maximum memory taken by the tables kept for the sessions of the {@link Strategy#INCREMENTAL}
+         * engine. The least recently used sessions are dropped beyond it.
+         */
+        private DataSize sessionMaxMemory = DataSize.ofMegabytes(256);
+
+        /**
+         * The time a session of the {@link Strategy#INCREMENTAL} engine is kept since its last request.
+         */
+        private Duration sessionTimeToIdle = Duration.ofMinutes(30);
+
+        /**
+         * The maximum memory the solver of a single coupon may take. Larger coupons fall back to an
+         * engine that takes less, or are rejected when none does.
+         */
+        private DataSize maxCouponMemory = DataSize.ofMegabytes(256);
+
+        /**
+         * The maximum number of elementary steps the solver of a single coupon may take, checked like
+         * {@link #maxCouponMemory}.
+         */
+        private long maxCouponOperations = 10_000_000_000L;
+
+        /**
+         * The memory that the solvers of all the coupons being solved at once may take together.
+         */
+        private DataSize memoryBudget = DataSize.ofGigabytes(1);
+
+        /**
+         * The time a coupon waits for its memory to be available in the budget before being rejected.
+         */
+        private Duration admissionTimeout = Duration.ofSeconds(1);
+
+        /**
+         * The share of the best total that the {@link Strategy#APPROXIMATE} engine may lose, used for the
+         * coupons that no exact engine can solve within the limits. Zero rejects them instead.
+         */
+        private float epsilon = 0.01F;
+
+        /**
+         * The time after which a coupon is answered with the best solution found so far, by the
+         * {@link Strategy#ANYTIME} engine. Zero waits for the exact solution.
+         */
+        private Duration deadline = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class Item {
+
+        /**
+         * The URL of the items API, to which the item ID is appended.
+         */
+        private String baseUrl = ItemConsumerEndpoint.BASE;
+
+        /**
+         * The maximum number of concurrent calls to the items API made by a single request.
+         */
+        private int fetchConcurrency = 16;
+
+        /**
+         * The maximum number of items requested in a single multi-get call to the items API. With 1, each
+         * item is requested on its own call.
+         */
+        private int multiGetSize = 1;
+
+        /**
+         * The time the item prices are kept in Redis.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+
+        /**
+         * The time before a cached price expires from which reading it fetches it again in the background.
+         * Zero disables the refresh.
+         */
+        private Duration refreshAhead = Duration.ofMinutes(5);
+
+        private final NearCache nearCache = new NearCache();
+
+        private final Client client = new Client();
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private final Bulkhead bulkhead = new Bulkhead();
+    }
+
+    @Getter
+    @Setter
+    public static class NearCache {
+
+        /**
+         * The maximum number of item prices kept in memory by each instance.
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * The time after which a price kept in memory is read again from Redis.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(1);
+
+        /**
+         * The Redis channel on which the instances announce the prices they write, so the others evict
+         * their copies. Invalidations are not published when empty.
+         */
+        private String invalidationChannel;
+    }
+
+    @Getter
+    @Setter
+    public static class Client {
+
+        /**
+         * The maximum number of pooled connections to the items API.
+         */
+        private int maxConnections = 100;
+
+        /**
+         * The maximum number of calls waiting for a pooled connection. Further calls fail at once.
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        /**
+         * The time a call waits for a pooled connection before failing.
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * The time a pooled connection may stay idle before it is closed.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * The time to establish a connection before failing.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * The time a call waits for its whole response before failing.
+         */
+        private Duration responseTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Whether to negotiate HTTP/2, falling back to HTTP/1.1.
+         */
+        private boolean http2 = false;
+
+        /**
+         * Whether to publish the connection pool and client metrics.
+         */
+        private boolean metrics = true;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        /**
+         * The percentage of failed calls from which the calls to the items API are stopped.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * The percentage of slow calls from which the calls to the items API are stopped.
+         */
+        private float slowCallRateThreshold = 80;
+
+        /**
+         * The time from which a call to the items API is slow.
+         */
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+
+        /**
+         * The number of latest calls over which the rates are computed.
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * The time the calls stay stopped before a few are let through to probe the items API.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+
+        /**
+         * The maximum number of calls to the items API in flight across all requests. Further calls are
+         * rejected at once instead of queued.
+         */
+        private int maxConcurrentCalls = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class ResultCache {
+
+        /**
+         * Whether identical coupon requests reuse the solution of the first one.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of items, summed over all the cached requests, kept in memory.
+         */
+        private long maxItems = 1_000_000;
+
+        /**
+         * The time a solution is kept.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * The number of coupons of a stream being priced and solved at once. It also bounds the
+         * coupons held in memory while an earlier one is still being solved.
+         */
+        private int streamConcurrency = 64;
+
+        /**
+         * The maximum number of coupons of a batch. A longer batch is rejected as a whole.
+         */
+        private int maxSize = 1000;
+    }
+}
@@ -1,21 +1,84 @@
 package io.github.lzmz.coupon.config;
 
+import io.github.lzmz.coupon.cache.ItemNearCache;
+import io.github.lzmz.coupon.redis.ItemKeyspaceConfiguration;
+import io.github.lzmz.coupon.redis.ItemRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 
 @Configuration
+@EnableRedisRepositories(basePackageClasses = ItemRepository.class,
+        keyspaceConfiguration = ItemKeyspaceConfiguration.class)
 public class RedisConfig {
 
+    /**
+     * Creates the connection factory of the blocking endpoints.
+     *
+     * @param redisProperties the {@code spring.redis} settings, of which the host and port are used.
+     * @return {@link JedisConnectionFactory}.
+     */
     @Bean
-    JedisConnectionFactory connectionFactory() {
-        return new JedisConnectionFactory();
+    @Primary
+    JedisConnectionFactory connectionFactory(RedisProperties redisProperties) {
+        return new JedisConnectionFactory(standaloneConfiguration(redisProperties));
     }
 
     @Bean
     StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
     }
+
+    /**
+     * Creates the connection factory of the non-blocking endpoints. Jedis has no reactive API, so
+     * these connections are made through Lettuce.
+     *
+     * @param redisProperties the {@code spring.redis} settings, of which the host and port are used.
+     * @return {@link LettuceConnectionFactory}.
+     */
+    @Bean
+    LettuceConnectionFactory reactiveConnectionFactory(RedisProperties redisProperties) {
+        return new LettuceConnectionFactory(standaloneConfiguration(redisProperties));
+    }
+
+    @Bean
+    ReactiveStringRedisTemplate reactiveStringRedisTemplate(ReactiveRedisConnectionFactory reactiveConnectionFactory) {
+        return new ReactiveStringRedisTemplate(reactiveConnectionFactory);
+    }
+
+    /**
+     * Subscribes the near cache to the prices written by the other instances.
+     *
+     * @param connectionFactory the connection factory of the subscription.
+     * @param itemNearCache     the near cache to evict.
+     * @param couponProperties  the application settings.
+     * @return {@link RedisMessageListenerContainer}.
+     */
+    @Bean
+    @ConditionalOnProperty("coupon.item.near-cache.invalidation-channel")
+    RedisMessageListenerContainer itemInvalidationContainer(RedisConnectionFactory connectionFactory,
+                                                           ItemNearCache itemNearCache,
+                                                           CouponProperties couponProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(itemNearCache,
+                new ChannelTopic(couponProperties.getItem().getNearCache().getInvalidationChannel()));
+        return container;
+    }
+
+    private static RedisStandaloneConfiguration standaloneConfiguration(RedisProperties redisProperties) {
+        return new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+    }
 }
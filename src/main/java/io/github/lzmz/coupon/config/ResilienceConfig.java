@@ -0,0 +1,73 @@
+package io.github.lzmz.coupon.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+
+    /**
+     * The name of the circuit breaker and the bulkhead around the items API.
+     */
+    public static final String ITEMS = "items";
+
+    /**
+     * Creates the circuit breaker around the items API. Client errors, such as an unknown item, are the
+     * answer of a healthy API, so they are not counted as failures.
+     *
+     * @param couponProperties the application settings.
+     * @param meterRegistry    the registry where the state and calls of the circuit breaker are published.
+     * @return {@link CircuitBreaker}.
+     */
+    @Bean
+    CircuitBreaker itemCircuitBreaker(CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        CouponProperties.CircuitBreaker properties = couponProperties.getItem().getCircuitBreaker();
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDurationThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getSlidingWindowSize())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                .recordException(ResilienceConfig::isFailure)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(ITEMS);
+    }
+
+    /**
+     * Creates the bulkhead that bounds the calls in flight to the items API.
+     *
+     * @param couponProperties the application settings.
+     * @param meterRegistry    the registry where the available calls of the bulkhead are published.
+     * @return {@link Bulkhead}.
+     */
+    @Bean
+    Bulkhead itemBulkhead(CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(couponProperties.getItem().getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(ITEMS);
+    }
+
+    private static boolean isFailure(Throwable throwable) {
+        return !(throwable instanceof WebClientResponseException)
+                || !((WebClientResponseException) throwable).getStatusCode().is4xxClientError();
+    }
+}
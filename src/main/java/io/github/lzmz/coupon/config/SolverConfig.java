@@ -0,0 +1,83 @@
+package io.github.lzmz.coupon.config;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.implementation.ApproximateSolver;
+import io.github.lzmz.coupon.solver.implementation.BitsetSolver;
+import io.github.lzmz.coupon.solver.implementation.BranchAndBoundSolver;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.MatrixSolver;
+import io.github.lzmz.coupon.solver.implementation.MeetInTheMiddleSolver;
+import io.github.lzmz.coupon.solver.implementation.ParallelSolver;
+import io.github.lzmz.coupon.solver.implementation.PlannerSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+
+@Configuration
+public class SolverConfig {
+
+    /**
+     * Creates the solver selected by the {@code coupon.solver.engine} property, behind the admission
+     * control of the {@code coupon.solver} limits. The coupons too large for it fall back to the
+     * engines that take the least memory, then to the approximation with {@code coupon.solver.epsilon}.
+     *
+     * @param couponProperties the application settings.
+     * @return the {@link BudgetedSolver} to use.
+     */
+    @Bean
+    BudgetedSolver couponSolver(CouponProperties couponProperties) {
+        CouponProperties.Solver solver = couponProperties.getSolver();
+        return new BudgetedSolver(engine(couponProperties),
+                Arrays.asList(new BitsetSolver(), new MeetInTheMiddleSolver()),
+                solver.getEpsilon() > 0 ? new ApproximateSolver(solver.getEpsilon()) : null,
+                new Cost(solver.getMaxCouponOperations(), solver.getMaxCouponMemory().toBytes()),
+                solver.getMemoryBudget().toBytes(), solver.getAdmissionTimeout());
+    }
+
+    /**
+     * Creates the solver selected by the {@code coupon.solver.engine} property.
+     *
+     * @param couponProperties the application settings.
+     * @return the {@link CouponSolver} of the engine.
+     */
+    private static CouponSolver engine(CouponProperties couponProperties) {
+        switch (couponProperties.getSolver().getEngine()) {
+            case MATRIX:
+                return new MatrixSolver();
+            case ROLLING:
+                return new RollingSolver();
+            case BITSET:
+                return new BitsetSolver();
+            case PARALLEL:
+                return new ParallelSolver(couponProperties.getSolver().getParallelism(),
+                        couponProperties.getSolver().getParallelThreshold());
+            case MEET_IN_THE_MIDDLE:
+                return new MeetInTheMiddleSolver();
+            case BRANCH_AND_BOUND:
+                return new BranchAndBoundSolver();
+            case APPROXIMATE:
+                return new ApproximateSolver(couponProperties.getSolver().getEpsilon());
+            case AUTO:
+                return new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver(), new BranchAndBoundSolver());
+            default:
+                throw new IllegalStateException(couponProperties.getSolver().getEngine() + " is not a solver engine");
+        }
+    }
+
+    /**
+     * Creates the scheduler on which the non-blocking endpoints run the solvers, so that the CPU-bound
+     * work never lands on the event loop threads.
+     *
+     * @param couponProperties the application settings.
+     * @return a bounded {@link Scheduler}.
+     */
+    @Bean(destroyMethod = "dispose")
+    Scheduler solverScheduler(CouponProperties couponProperties) {
+        return Schedulers.newParallel("solver", couponProperties.getSolver().getSchedulerThreads());
+    }
+}
@@ -1,19 +1,76 @@
 package io.github.lzmz.coupon.config;
 
-import io.github.lzmz.coupon.endpoint.ItemConsumerEndpoint;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
 
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * The name of the connection pool to the items API in the published metrics.
+     */
+    public static final String ITEM_POOL = "items";
+
+    private static final String HTTPS = "https";
+
+    /**
+     * Creates the connection pool to the items API.
+     *
+     * @param couponProperties the application settings.
+     * @return {@link ConnectionProvider}.
+     */
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider itemConnectionProvider(CouponProperties couponProperties) {
+        CouponProperties.Client client = couponProperties.getItem().getClient();
+        return ConnectionProvider.builder(ITEM_POOL)
+                .maxConnections(client.getMaxConnections())
+                .pendingAcquireMaxCount(client.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(client.getPendingAcquireTimeout())
+                .maxIdleTime(client.getMaxIdleTime())
+                .metrics(client.isMetrics())
+                .build();
+    }
+
+    /**
+     * Creates the client of the items API over the given connection pool. The response timeout is applied
+     * per call by {@link io.github.lzmz.coupon.client.ItemClient}, so idle pooled connections are not closed
+     * by a read timeout.
+     * <p>HTTP/2 is negotiated through TLS for an {@code https} base URL, and through an upgrade of the
+     * cleartext connection otherwise.</p>
+     *
+     * @param itemConnectionProvider the connection pool to the items API.
+     * @param couponProperties       the application settings.
+     * @return {@link WebClient}.
+     */
     @Bean
-    WebClient itemWebClient() {
+    WebClient itemWebClient(ConnectionProvider itemConnectionProvider, CouponProperties couponProperties) {
+        CouponProperties.Client client = couponProperties.getItem().getClient();
+        String baseUrl = couponProperties.getItem().getBaseUrl();
+        HttpClient httpClient = HttpClient.create(itemConnectionProvider)
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.getConnectTimeout().toMillis())
+                        .option(ChannelOption.SO_KEEPALIVE, true))
+                .metrics(client.isMetrics(), uri -> baseUrl);
+
+        if (client.isHttp2() && HTTPS.equalsIgnoreCase(URI.create(baseUrl).getScheme())) {
+            httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        } else if (client.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
         return WebClient.builder()
-                .baseUrl(ItemConsumerEndpoint.BASE)
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .build();
     }
@@ -0,0 +1,415 @@
+package io.github.lzmz.coupon.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.dto.response.CouponBatchEntryDto;
+import io.github.lzmz.coupon.dto.response.CouponSolutionDto;
+import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import io.github.lzmz.coupon.exception.ApiError;
+import io.github.lzmz.coupon.exception.ApiErrorCode;
+import io.github.lzmz.coupon.exception.BatchTooLargeException;
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.exception.RestExceptionHandler;
+import io.github.lzmz.coupon.exception.SolverBusyException;
+import io.github.lzmz.coupon.metrics.CalculateTimer;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
+import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.github.lzmz.coupon.solver.Solution;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Tag(name = "Coupon")
+@RestController
+@RequestMapping(value = CouponEndpoint.BASE, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+public class CouponBatchController {
+
+    /**
+     * The media type of the streaming batches: a JSON document per line.
+     */
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int NEW_LINE = '\n';
+
+    private final ItemConsumerService itemConsumerService;
+    private final ReactiveItemConsumerService reactiveItemConsumerService;
+    private final CouponService couponService;
+    private final IncrementalCouponService incrementalCouponService;
+    private final Scheduler solverScheduler;
+    private final Validator validator;
+    private final RestExceptionHandler restExceptionHandler;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int streamConcurrency;
+    private final int maxSize;
+
+    public CouponBatchController(ItemConsumerService itemConsumerService, ReactiveItemConsumerService reactiveItemConsumerService,
+                                 CouponService couponService, IncrementalCouponService incrementalCouponService,
+                                 Scheduler solverScheduler, Validator validator, RestExceptionHandler restExceptionHandler,
+                                 ObjectMapper objectMapper, CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        this.itemConsumerService = itemConsumerService;
+        this.reactiveItemConsumerService = reactiveItemConsumerService;
+        this.couponService = couponService;
+        this.incrementalCouponService = incrementalCouponService;
+        this.solverScheduler = solverScheduler;
+        this.validator = validator;
+        this.restExceptionHandler = restExceptionHandler;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.streamConcurrency = couponProperties.getBatch().getStreamConcurrency();
+        this.maxSize = couponProperties.getBatch().getMaxSize();
+    }
+
+    /**
+     * Solves many coupons like {@link CouponController#calculate(CouponCalculateDto)} does with each one.
+     * The prices of all the items are recovered together, and the coupons are solved concurrently on the
+     * bounded solver scheduler.
+     * <p>A coupon that fails does not fail the batch: its entry holds the error that the coupon alone
+     * would have been answered with. When recovering the prices of the whole batch fails, such as on a
+     * timeout or an error answer of the items API, each coupon is priced on its own, so that only the
+     * coupons that hold the failing items fail.</p>
+     * <p>The time taken by each valid coupon, from the start of the batch, is published as
+     * {@code coupon.calculate}.</p>
+     *
+     * @param couponCalculateDtos the coupon calculation request bodies.
+     * @return an entry per coupon, in the order of the request, with either its solution or its error.
+     * @throws BatchTooLargeException if the batch holds more than {@code coupon.batch.max-size} coupons.
+     */
+    @Operation(summary = "Solves many coupons at once. The response holds an entry per coupon, in the order " +
+            "of the request, with either its solution or its error.")
+    @PostMapping(CouponEndpoint.BATCH)
+    @ResponseStatus(HttpStatus.OK)
+    public List<CouponBatchEntryDto> calculate(@RequestBody List<CouponCalculateDto> couponCalculateDtos) {
+        if (couponCalculateDtos.size() > maxSize) {
+            throw new BatchTooLargeException(couponCalculateDtos.size(), maxSize);
+        }
+
+        long start = System.nanoTime();
+        List<ApiError> invalid = couponCalculateDtos.stream().map(this::validate).collect(Collectors.toList());
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < couponCalculateDtos.size(); i++) {
+            if (invalid.get(i) == null) {
+                ids.addAll(couponCalculateDtos.get(i).getItemsId());
+            }
+        }
+
+        Set<String> noPriceIds = new HashSet<>();
+        ItemPrices itemPrices = getBatchItemsPrice(new LinkedHashSet<>(ids), noPriceIds);
+
+        return Flux.range(0, couponCalculateDtos.size())
+                .flatMapSequential(i -> {
+                    if (invalid.get(i) != null) {
+                        return Mono.just(new CouponBatchEntryDto(invalid.get(i)));
+                    } else if (itemPrices == null) {
+                        return calculate(couponCalculateDtos.get(i), start);
+                    }
+
+                    return Mono.fromCallable(() -> calculate(couponCalculateDtos.get(i), itemPrices, noPriceIds))
+                            .subscribeOn(solverScheduler)
+                            .doOnNext(entry -> CalculateTimer.record(meterRegistry, couponCalculateDtos.get(i),
+                                    entry.getSolution(), start));
+                })
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Streaming version of {@link #calculate(List)} for batches too large to be held in memory. Each line
+     * of the request holds a coupon, and each line of the response the entry of the coupon on the same
+     * line of the request.
+     * <p>Lines are only read as the previous entries are written, and at most
+     * {@code coupon.batch.stream-concurrency} coupons are priced and solved at once, so the memory used
+     * does not depend on the length of the stream. Each coupon is priced on its own, without blocking.
+     * The request is read by the thread that writes the response, never by the threads that price and
+     * solve the coupons. The time taken by each valid coupon, from the reading of its line, is published
+     * as {@code coupon.calculate}.</p>
+     *
+     * @param request the request whose body holds a coupon calculation request body per line.
+     * @return the body that writes the entry of each coupon as soon as it and the previous ones are solved.
+     * @throws IOException if the request body could not be opened.
+     */
+    @Operation(summary = "Streaming version of the batch calculation. Each line of the request holds a coupon, " +
+            "and each line of the response the entry of the coupon on the same line of the request.")
+    @PostMapping(value = CouponEndpoint.BATCH_STREAM, consumes = NDJSON_VALUE, produces = NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public StreamingResponseBody stream(HttpServletRequest request) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+
+        return output -> {
+            Deque<CompletableFuture<CouponBatchEntryDto>> pending = new ArrayDeque<>();
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                if (pending.size() == streamConcurrency) {
+                    write(output, pending.poll().join());
+                }
+
+                pending.add(calculate(line).toFuture());
+            }
+
+            while (!pending.isEmpty()) {
+                write(output, pending.poll().join());
+            }
+        };
+    }
+
+    /**
+     * Writes the entry of a coupon of a stream on its own line.
+     *
+     * @param output the body of the response.
+     * @param entry  the entry of the coupon.
+     * @throws IOException if the entry could not be written.
+     */
+    private void write(OutputStream output, CouponBatchEntryDto entry) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(entry));
+        output.write(NEW_LINE);
+        output.flush();
+    }
+
+    /**
+     * Checks the constraints of a coupon of the batch.
+     *
+     * @param couponCalculateDto the coupon calculation request body.
+     * @return the error of the coupon, or {@code null} if it is valid.
+     */
+    private ApiError validate(CouponCalculateDto couponCalculateDto) {
+        if (couponCalculateDto == null) {
+            return new ApiError(ApiErrorCode.METHOD_ARGUMENT_NOT_VALID, HttpStatus.BAD_REQUEST, "Invalid arguments",
+                    "The coupon is null");
+        }
+
+        Set<ConstraintViolation<CouponCalculateDto>> violations = validator.validate(couponCalculateDto);
+
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder message = new StringBuilder("Invalid arguments: ");
+        List<String> errors = new ArrayList<>();
+
+        for (ConstraintViolation<CouponCalculateDto> violation : violations) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            message.append(violation.getPropertyPath()).append(" ");
+        }
+
+        return new ApiError(ApiErrorCode.METHOD_ARGUMENT_NOT_VALID, HttpStatus.BAD_REQUEST,
+                message.toString().trim(), errors);
+    }
+
+    /**
+     * Recovers the prices of the items of the whole batch like {@link #getAvailableItemsPrice(Set, Set)},
+     * unless the items API times out or answers with an error, which the batch cannot pin on an item.
+     *
+     * @param ids        the distinct IDs of the items of the batch.
+     * @param noPriceIds the collection to which the IDs of the items that have no price are added.
+     * @return the prices found and the IDs left unpriced, or {@code null} if the coupons must be priced
+     * on their own.
+     */
+    private ItemPrices getBatchItemsPrice(Set<String> ids, Set<String> noPriceIds) {
+        try {
+            return getAvailableItemsPrice(ids, noPriceIds);
+        } catch (ExternalServiceTimeoutException | WebClientResponseException e) {
+            log.debug("Prices of the batch failed, pricing each coupon on its own", e);
+            return null;
+        }
+    }
+
+    /**
+     * Recovers the prices of the items of the whole batch. The items that have no price are set apart
+     * and the rest recovered again, which is served from the caches filled by the first attempt.
+     *
+     * @param ids        the distinct IDs of the items of the batch.
+     * @param noPriceIds the collection to which the IDs of the items that have no price are added.
+     * @return the prices found and the IDs left unpriced because the items API was unavailable.
+     */
+    private ItemPrices getAvailableItemsPrice(Set<String> ids, Set<String> noPriceIds) {
+        try {
+            return itemConsumerService.getAvailableItemsPrice(new ArrayList<>(ids));
+        } catch (NoItemPriceException e) {
+            noPriceIds.addAll(e.getIds());
+            ids.removeAll(e.getIds());
+            return getAvailableItemsPrice(ids, noPriceIds);
+        }
+    }
+
+    /**
+     * Solves a coupon of the batch with the prices recovered for the whole batch.
+     *
+     * @param couponCalculateDto the coupon calculation request body.
+     * @param itemPrices         the prices recovered for the batch.
+     * @param noPriceIds         the IDs of the items of the batch that have no price.
+     * @return the entry of the coupon.
+     */
+    private CouponBatchEntryDto calculate(CouponCalculateDto couponCalculateDto, ItemPrices itemPrices,
+                                          Set<String> noPriceIds) {
+        List<String> ids = couponCalculateDto.getItemsId();
+        List<String> noPrice = ids.stream().filter(noPriceIds::contains).distinct().collect(Collectors.toList());
+
+        if (!noPrice.isEmpty()) {
+            return new CouponBatchEntryDto(restExceptionHandler.handleNoItemPrice(new NoItemPriceException(noPrice)));
+        }
+
+        Map<String, Float> items = new HashMap<>();
+        List<String> unpricedIds = new ArrayList<>();
+
+        for (String id : new LinkedHashSet<>(ids)) {
+            Float price = itemPrices.getPrices().get(id);
+
+            if (price != null) {
+                items.put(id, price);
+            } else {
+                unpricedIds.add(id);
+            }
+        }
+
+        if (items.isEmpty()) {
+            return new CouponBatchEntryDto(restExceptionHandler.handleExternalServiceUnavailable());
+        }
+
+        try {
+            Solution solution = incrementalCouponService.solve(couponCalculateDto.getSessionId(),
+                    couponCalculateDto.getItemsId(), items, couponCalculateDto.getAmount(), couponCalculateDto.getEpsilon(),
+                    couponCalculateDto.getDeadline());
+            Float total = couponService.calculateTotalAmount(solution.getItemsId(), items);
+            return new CouponBatchEntryDto(new CouponSolutionDto(solution.getItemsId(), total,
+                    solution.getStrategy(), solution.isExact(), solution.getBound(), unpricedIds));
+        } catch (InsufficientAmountException | RuntimeException e) {
+            return new CouponBatchEntryDto(toApiError(e));
+        }
+    }
+
+    /**
+     * Solves a coupon of a stream: it is parsed, validated, priced and solved on its own.
+     *
+     * @param line the line of the stream that holds the coupon calculation request body.
+     * @return a {@link Mono} with the entry of the coupon.
+     */
+    private Mono<CouponBatchEntryDto> calculate(String line) {
+        long start = System.nanoTime();
+        CouponCalculateDto couponCalculateDto;
+
+        try {
+            couponCalculateDto = objectMapper.readValue(line, CouponCalculateDto.class);
+        } catch (JsonProcessingException e) {
+            return Mono.just(new CouponBatchEntryDto(new ApiError(ApiErrorCode.MESSAGE_NOT_READABLE,
+                    HttpStatus.BAD_REQUEST, "Invalid body", e.getOriginalMessage())));
+        }
+
+        ApiError invalid = validate(couponCalculateDto);
+
+        if (invalid != null) {
+            return Mono.just(new CouponBatchEntryDto(invalid));
+        }
+
+        return calculate(couponCalculateDto, start);
+    }
+
+    /**
+     * Solves a valid coupon on its own: it is priced without blocking and solved on the bounded solver
+     * scheduler.
+     *
+     * @param couponCalculateDto the coupon calculation request body.
+     * @param start              the {@link System#nanoTime()} at which the coupon was received.
+     * @return a {@link Mono} with the entry of the coupon.
+     */
+    private Mono<CouponBatchEntryDto> calculate(CouponCalculateDto couponCalculateDto, long start) {
+        return reactiveItemConsumerService
+                .getAvailableItemsPrice(couponCalculateDto.getItemsId())
+                .flatMap(itemPrices -> Mono.fromCallable(() -> {
+                    Map<String, Float> items = itemPrices.getPrices();
+
+                    if (items.isEmpty()) {
+                        throw new ExternalServiceUnavailableException();
+                    }
+
+                    Solution solution = incrementalCouponService.solve(couponCalculateDto.getSessionId(),
+                            couponCalculateDto.getItemsId(), items, couponCalculateDto.getAmount(),
+                            couponCalculateDto.getEpsilon(), couponCalculateDto.getDeadline());
+                    Float total = couponService.calculateTotalAmount(solution.getItemsId(), items);
+                    return new CouponBatchEntryDto(new CouponSolutionDto(solution.getItemsId(), total,
+                            solution.getStrategy(), solution.isExact(), solution.getBound(), itemPrices.getUnpricedIds()));
+                }).subscribeOn(solverScheduler))
+                .onErrorResume(e -> Mono.just(new CouponBatchEntryDto(toApiError(e))))
+                .doOnNext(entry -> CalculateTimer.record(meterRegistry, couponCalculateDto, entry.getSolution(), start));
+    }
+
+    /**
+     * Builds the error that a coupon alone would have been answered with.
+     *
+     * @param e the exception that failed the coupon.
+     * @return the {@link ApiError} of the coupon.
+     */
+    private ApiError toApiError(Throwable e) {
+        if (e instanceof InsufficientAmountException) {
+            return restExceptionHandler.handleInsufficientAmount((InsufficientAmountException) e);
+        } else if (e instanceof NoItemPriceException) {
+            return restExceptionHandler.handleNoItemPrice((NoItemPriceException) e);
+        } else if (e instanceof WebClientResponseException) {
+            try {
+                return restExceptionHandler.handleWebClientResponseException((WebClientResponseException) e);
+            } catch (JsonProcessingException ex) {
+                log.error("Unreadable error of the items API", ex);
+                return restExceptionHandler.handleAll();
+            }
+        } else if (e instanceof ExternalServiceTimeoutException) {
+            return restExceptionHandler.handleExternalServiceTimeout((ExternalServiceTimeoutException) e);
+        } else if (e instanceof ExternalServiceUnavailableException) {
+            return restExceptionHandler.handleExternalServiceUnavailable();
+        } else if (e instanceof CouponTooLargeException) {
+            return restExceptionHandler.handleCouponTooLarge((CouponTooLargeException) e);
+        } else if (e instanceof SolverBusyException) {
+            return restExceptionHandler.handleSolverBusy();
+        }
+
+        log.error("Coupon of the batch failed", e);
+        return restExceptionHandler.handleAll();
+    }
+}
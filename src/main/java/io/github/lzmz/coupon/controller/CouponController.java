@@ -3,10 +3,16 @@ package io.github.lzmz.coupon.controller;
 import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
 import io.github.lzmz.coupon.dto.response.CouponSolutionDto;
 import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
 import io.github.lzmz.coupon.exception.InsufficientAmountException;
 import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.metrics.CalculateTimer;
 import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
 import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.solver.Solution;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
@@ -18,7 +24,6 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
-import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Coupon")
@@ -28,22 +33,31 @@ public class CouponController {
 
     private final ItemConsumerService itemConsumerService;
     private final CouponService couponService;
+    private final IncrementalCouponService incrementalCouponService;
+    private final MeterRegistry meterRegistry;
 
-    public CouponController(ItemConsumerService itemConsumerService, CouponService couponService) {
+    public CouponController(ItemConsumerService itemConsumerService, CouponService couponService,
+                            IncrementalCouponService incrementalCouponService, MeterRegistry meterRegistry) {
         this.itemConsumerService = itemConsumerService;
         this.couponService = couponService;
+        this.incrementalCouponService = incrementalCouponService;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
      * Retrieves a subset of the given {@code items} that maximizes the total spending but does not
      * exceed the {@code amount} supplied. Additionally, it includes the total amount associated to
      * the items of the solution.
+     * <p>While the items API is unavailable, the coupon is solved with the cached prices only, and the
+     * items left out for lack of a price are listed in the response.</p>
+     * <p>The time taken is published as {@code coupon.calculate}, tagged by strategy, size and outcome.</p>
      *
      * @param couponCalculateDto the coupon calculation request body.
-     * @return a list of item IDs that maximizes the total spending, and the amount associated to these
-     * items.
-     * @throws InsufficientAmountException if none item can be bought with the given amount.
-     * @throws NoItemPriceException        if one or more of the items has no price.
+     * @return a list of item IDs that maximizes the total spending, the amount associated to these
+     * items, the strategy that found them and the items that could not be priced.
+     * @throws InsufficientAmountException         if none item can be bought with the given amount.
+     * @throws NoItemPriceException                if one or more of the items has no price.
+     * @throws ExternalServiceUnavailableException if none of the items could be priced.
      */
     @Operation(summary = "Retrieves a subset of the given items that maximizes the total spending but " +
             "does not exceed the amount supplied. Additionally, it includes the total amount associated " +
@@ -51,9 +65,25 @@ public class CouponController {
     @PostMapping()
     @ResponseStatus(HttpStatus.OK)
     public CouponSolutionDto calculate(@Valid @RequestBody CouponCalculateDto couponCalculateDto) throws InsufficientAmountException, NoItemPriceException {
-        Map<String, Float> items = itemConsumerService.getItemsPrice(couponCalculateDto.getItemsId());
-        List<String> calculated = couponService.calculate(items, couponCalculateDto.getAmount());
-        Float total = couponService.calculateTotalAmount(calculated, items);
-        return new CouponSolutionDto(calculated, total);
+        long start = System.nanoTime();
+        CouponSolutionDto couponSolutionDto = null;
+
+        try {
+            ItemPrices itemPrices = itemConsumerService.getAvailableItemsPrice(couponCalculateDto.getItemsId());
+            Map<String, Float> items = itemPrices.getPrices();
+
+            if (items.isEmpty()) {
+                throw new ExternalServiceUnavailableException();
+            }
+
+            Solution solution = incrementalCouponService.solve(couponCalculateDto.getSessionId(), couponCalculateDto.getItemsId(),
+                    items, couponCalculateDto.getAmount(), couponCalculateDto.getEpsilon(), couponCalculateDto.getDeadline());
+            Float total = couponService.calculateTotalAmount(solution.getItemsId(), items);
+            couponSolutionDto = new CouponSolutionDto(solution.getItemsId(), total, solution.getStrategy(),
+                    solution.isExact(), solution.getBound(), itemPrices.getUnpricedIds());
+            return couponSolutionDto;
+        } finally {
+            CalculateTimer.record(meterRegistry, couponCalculateDto, couponSolutionDto, start);
+        }
     }
 }
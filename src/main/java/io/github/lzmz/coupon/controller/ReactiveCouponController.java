@@ -0,0 +1,90 @@
+package io.github.lzmz.coupon.controller;
+
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.dto.response.CouponSolutionDto;
+import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.metrics.CalculateTimer;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.github.lzmz.coupon.solver.Solution;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.validation.Valid;
+import java.util.Map;
+
+@Tag(name = "Coupon")
+@RestController
+@RequestMapping(value = CouponEndpoint.BASE, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReactiveCouponController {
+
+    private final ReactiveItemConsumerService reactiveItemConsumerService;
+    private final CouponService couponService;
+    private final IncrementalCouponService incrementalCouponService;
+    private final Scheduler solverScheduler;
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveCouponController(ReactiveItemConsumerService reactiveItemConsumerService, CouponService couponService,
+                                    IncrementalCouponService incrementalCouponService, Scheduler solverScheduler,
+                                    MeterRegistry meterRegistry) {
+        this.reactiveItemConsumerService = reactiveItemConsumerService;
+        this.couponService = couponService;
+        this.incrementalCouponService = incrementalCouponService;
+        this.solverScheduler = solverScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Same as {@link CouponController#calculate(CouponCalculateDto)}, but no thread is held while the
+     * prices are recovered, and the coupon is solved on the bounded solver scheduler. The time taken is
+     * published as {@code coupon.calculate} too.
+     *
+     * @param couponCalculateDto the coupon calculation request body.
+     * @return a {@link Mono} with the list of item IDs that maximizes the total spending, the amount
+     * associated to these items, the strategy that found them and the items that could not be priced. It
+     * fails with an {@link InsufficientAmountException} if none item can be bought with the given amount,
+     * with a {@link NoItemPriceException} if one or more of the items has no price, or with an
+     * {@link ExternalServiceUnavailableException} if none of the items could be priced.
+     */
+    @Operation(summary = "Non-blocking version of the coupon calculation.")
+    @PostMapping(CouponEndpoint.REACTIVE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CouponSolutionDto> calculate(@Valid @RequestBody CouponCalculateDto couponCalculateDto) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveItemConsumerService
+                    .getAvailableItemsPrice(couponCalculateDto.getItemsId())
+                    .flatMap(itemPrices -> Mono.fromCallable(() -> {
+                        Map<String, Float> items = itemPrices.getPrices();
+
+                        if (items.isEmpty()) {
+                            throw new ExternalServiceUnavailableException();
+                        }
+
+                        Solution solution = incrementalCouponService.solve(couponCalculateDto.getSessionId(),
+                                couponCalculateDto.getItemsId(), items, couponCalculateDto.getAmount(),
+                                couponCalculateDto.getEpsilon(), couponCalculateDto.getDeadline());
+                        Float total = couponService.calculateTotalAmount(solution.getItemsId(), items);
+                        return new CouponSolutionDto(solution.getItemsId(), total, solution.getStrategy(),
+                                solution.isExact(), solution.getBound(), itemPrices.getUnpricedIds());
+                    }).subscribeOn(solverScheduler))
+                    .doOnSuccess(couponSolutionDto -> CalculateTimer.record(meterRegistry, couponCalculateDto,
+                            couponSolutionDto, start))
+                    .doOnError(e -> CalculateTimer.record(meterRegistry, couponCalculateDto, null, start));
+        });
+    }
+}
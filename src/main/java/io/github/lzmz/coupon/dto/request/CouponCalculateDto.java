@@ -1,5 +1,6 @@
 package io.github.lzmz.coupon.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -7,9 +8,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.List;
 
 @Getter
@@ -26,4 +31,44 @@ public class CouponCalculateDto implements Serializable {
     @NotNull
     @Schema(required = true, description = "Total amount to spend.")
     private Float amount;
+
+    @JsonProperty("session_id")
+    @Schema(description = "Client-chosen ID that groups the requests of a growing item list, so each " +
+            "request only processes the items appended since the previous one.")
+    private String sessionId;
+
+    @DecimalMin(value = "0", inclusive = false)
+    @DecimalMax(value = "1", inclusive = false)
+    @Schema(description = "Share of the largest total that may be lost in exchange for a cheaper solution, " +
+            "e.g. 0.01 for a total of at least 99% of the largest one. Exact when absent, and ignored with " +
+            "a session.")
+    private Float epsilon;
+
+    @JsonProperty("deadline_ms")
+    @Min(1)
+    @Schema(description = "Milliseconds after which the best solution found so far is returned, telling " +
+            "whether it was proven the best one. The configured one when absent, and ignored with a session.")
+    private Integer deadlineMs;
+
+    public CouponCalculateDto(List<String> itemsId, Float amount) {
+        this(itemsId, amount, null);
+    }
+
+    public CouponCalculateDto(List<String> itemsId, Float amount, String sessionId) {
+        this(itemsId, amount, sessionId, null);
+    }
+
+    public CouponCalculateDto(List<String> itemsId, Float amount, String sessionId, Float epsilon) {
+        this(itemsId, amount, sessionId, epsilon, null);
+    }
+
+    /**
+     * Retrieves the deadline of the request.
+     *
+     * @return the deadline, {@code null} if the request has none.
+     */
+    @JsonIgnore
+    public Duration getDeadline() {
+        return deadlineMs == null ? null : Duration.ofMillis(deadlineMs);
+    }
 }
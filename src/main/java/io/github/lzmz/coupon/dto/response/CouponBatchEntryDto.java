@@ -0,0 +1,33 @@
+package io.github.lzmz.coupon.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.github.lzmz.coupon.exception.ApiError;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of one coupon of a batch: either its solution or the error that the coupon alone would
+ * have been answered with.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CouponBatchEntryDto implements Serializable {
+
+    @Schema(description = "Solution of the coupon, absent if it failed.")
+    private final CouponSolutionDto solution;
+
+    @Schema(description = "Error of the coupon, absent if it was solved.")
+    private final ApiError error;
+
+    public CouponBatchEntryDto(CouponSolutionDto solution) {
+        this(solution, null);
+    }
+
+    public CouponBatchEntryDto(ApiError error) {
+        this(null, error);
+    }
+}
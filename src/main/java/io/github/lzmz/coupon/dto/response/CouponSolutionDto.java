@@ -1,6 +1,8 @@
 package io.github.lzmz.coupon.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.lzmz.coupon.solver.Strategy;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,4 +24,18 @@ public class CouponSolutionDto implements Serializable {
     @NotNull
     @Schema(description = "Total amount associated to the items of the solution.")
     private final Float total;
+
+    @Schema(description = "Strategy that solved the coupon.")
+    private final Strategy strategy;
+
+    @Schema(description = "Whether the total is known to be the largest one.")
+    private final boolean exact;
+
+    @Schema(description = "Share of the largest total that the total is known to reach, 1 when exact.")
+    private final float bound;
+
+    @JsonProperty("unpriced_item_ids")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @Schema(description = "Item ID left out of the solution because its price could not be retrieved.")
+    private final List<String> unpricedItemsId;
 }
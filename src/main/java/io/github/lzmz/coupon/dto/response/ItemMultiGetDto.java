@@ -0,0 +1,16 @@
+package io.github.lzmz.coupon.dto.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * An entry of the response of the items API multi-get, one per requested item, identified by the ID of its body.
+ */
+@Getter
+@Setter
+public class ItemMultiGetDto implements Serializable {
+    private Integer code;
+    private ItemPriceDto body;
+}
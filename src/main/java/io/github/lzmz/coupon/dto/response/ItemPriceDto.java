@@ -8,5 +8,6 @@ import java.io.Serializable;
 @Getter
 @Setter
 public class ItemPriceDto implements Serializable {
+    private String id;
     private Float price;
 }
@@ -2,6 +2,9 @@ package io.github.lzmz.coupon.endpoint;
 
 public final class CouponEndpoint {
     public static final String BASE = "/coupon";
+    public static final String REACTIVE = "/reactive";
+    public static final String BATCH = "/batch";
+    public static final String BATCH_STREAM = "/batch/stream";
 
     private CouponEndpoint() {
     }
@@ -6,10 +6,15 @@ public final class ApiErrorCode {
     public static final int UNSUPPORTED_MEDIA_TYPE = 40;
     public static final int METHOD_NOT_ALLOWED = 41;
     public static final int METHOD_ARGUMENT_NOT_VALID = 42;
+    public static final int BATCH_TOO_LARGE = 43;
     public static final int MESSAGE_NOT_READABLE = 60;
     public static final int WEB_CLIENT_RESPONSE = 80;
+    public static final int EXTERNAL_SERVICE_TIMEOUT = 81;
+    public static final int EXTERNAL_SERVICE_UNAVAILABLE = 82;
     public static final int NO_ITEM_PRICE = 100;
     public static final int INSUFFICIENT_AMOUNT = 120;
+    public static final int COUPON_TOO_LARGE = 140;
+    public static final int SOLVER_BUSY = 141;
 
     private ApiErrorCode() {
     }
@@ -0,0 +1,26 @@
+package io.github.lzmz.coupon.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a batch holds more coupons than a batch is allowed to.
+ */
+@Getter
+public class BatchTooLargeException extends RuntimeException {
+
+    /**
+     * The number of coupons of the batch.
+     */
+    private final int size;
+
+    /**
+     * The maximum number of coupons of a batch.
+     */
+    private final int maxSize;
+
+    public BatchTooLargeException(int size, int maxSize) {
+        super("Batch of " + size + " coupons is over the limit of " + maxSize);
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+}
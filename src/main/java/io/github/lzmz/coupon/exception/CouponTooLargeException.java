@@ -0,0 +1,37 @@
+package io.github.lzmz.coupon.exception;
+
+import io.github.lzmz.coupon.solver.Cost;
+import lombok.Getter;
+
+/**
+ * Thrown when solving a coupon would cost more than a single coupon is allowed to, with any engine.
+ */
+@Getter
+public class CouponTooLargeException extends RuntimeException {
+
+    /**
+     * The estimated cost of the cheapest engine, {@code null} if a value does not fit in the table.
+     */
+    private final Cost cost;
+
+    /**
+     * The cost a single coupon is allowed to take, {@code null} if a value does not fit in the table.
+     */
+    private final Cost limit;
+
+    public CouponTooLargeException(Cost cost, Cost limit) {
+        super("Coupon would take " + cost.getMemory() + " bytes and " + cost.getOperations()
+                + " operations, over the limit of " + limit.getMemory() + " bytes and " + limit.getOperations() + " operations");
+        this.cost = cost;
+        this.limit = limit;
+    }
+
+    /**
+     * @param cents the amount or price, in cents, that does not fit in an {@code int} cell of the table.
+     */
+    public CouponTooLargeException(long cents) {
+        super("Value of " + cents + " cents is over the limit of " + Integer.MAX_VALUE + " cents");
+        this.cost = null;
+        this.limit = null;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.lzmz.coupon.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an external service call took longer than allowed.
+ */
+@Getter
+public class ExternalServiceTimeoutException extends RuntimeException {
+
+    /**
+     * The time the call was allowed to take.
+     */
+    private final Duration timeout;
+
+    public ExternalServiceTimeoutException(Duration timeout, Throwable cause) {
+        super("External call timed out after " + timeout.toMillis() + " ms", cause);
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.lzmz.coupon.exception;
+
+/**
+ * Thrown when an external service call was not made, because the service keeps failing or is too busy.
+ */
+public class ExternalServiceUnavailableException extends RuntimeException {
+
+    public ExternalServiceUnavailableException() {
+        super("External service unavailable");
+    }
+
+    public ExternalServiceUnavailableException(Throwable cause) {
+        super("External service unavailable", cause);
+    }
+}
@@ -139,6 +139,37 @@ public class RestExceptionHandler {
         return new ApiError(code, status, message, error);
     }
 
+    /**
+     * Triggered when an external service call took too long.
+     *
+     * @param ex the exception to handle.
+     * @return a {@link ApiError} object with the error handled.
+     */
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    @ExceptionHandler(ExternalServiceTimeoutException.class)
+    public ApiError handleExternalServiceTimeout(ExternalServiceTimeoutException ex) {
+        int code = ApiErrorCode.EXTERNAL_SERVICE_TIMEOUT;
+        HttpStatus status = HttpStatus.GATEWAY_TIMEOUT;
+        String message = "External call timed out";
+        String error = "No response within " + ex.getTimeout().toMillis() + " ms";
+        return new ApiError(code, status, message, error);
+    }
+
+    /**
+     * Triggered when an external service call was rejected to shed load.
+     *
+     * @return a {@link ApiError} object with the error handled.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(ExternalServiceUnavailableException.class)
+    public ApiError handleExternalServiceUnavailable() {
+        int code = ApiErrorCode.EXTERNAL_SERVICE_UNAVAILABLE;
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        String message = "External service unavailable";
+        String error = "The item prices could not be retrieved, try again later";
+        return new ApiError(code, status, message, error);
+    }
+
     /**
      * Triggered when one or more items of a given list of IDs has no associated price.
      *
@@ -171,6 +202,57 @@ public class RestExceptionHandler {
         return new ApiError(code, status, message, error);
     }
 
+    /**
+     * Triggered when a coupon would cost more to solve than a single coupon is allowed to.
+     *
+     * @param ex the exception to handle.
+     * @return a {@link ApiError} object with the error handled.
+     */
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    @ExceptionHandler(CouponTooLargeException.class)
+    public ApiError handleCouponTooLarge(CouponTooLargeException ex) {
+        int code = ApiErrorCode.COUPON_TOO_LARGE;
+        HttpStatus status = HttpStatus.PAYLOAD_TOO_LARGE;
+        String message = "Coupon too large";
+        String error = ex.getCost() == null
+                ? "Amounts and prices are limited to " + Integer.MAX_VALUE / 100 + ", try a lower amount"
+                : "Solving the coupon would take " + ex.getCost().getMemory() / 1024 + " KB, over the limit of "
+                + ex.getLimit().getMemory() / 1024 + " KB, try fewer items or a lower amount";
+        return new ApiError(code, status, message, error);
+    }
+
+    /**
+     * Triggered when a batch holds more coupons than allowed.
+     *
+     * @param ex the exception to handle.
+     * @return a {@link ApiError} object with the error handled.
+     */
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ApiError handleBatchTooLarge(BatchTooLargeException ex) {
+        int code = ApiErrorCode.BATCH_TOO_LARGE;
+        HttpStatus status = HttpStatus.PAYLOAD_TOO_LARGE;
+        String message = "Batch too large";
+        String error = "The batch holds " + ex.getSize() + " coupons, over the limit of " + ex.getMaxSize()
+                + ", split it or use the stream";
+        return new ApiError(code, status, message, error);
+    }
+
+    /**
+     * Triggered when the solvers were too busy to start a coupon in time.
+     *
+     * @return a {@link ApiError} object with the error handled.
+     */
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(SolverBusyException.class)
+    public ApiError handleSolverBusy() {
+        int code = ApiErrorCode.SOLVER_BUSY;
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        String message = "Solver busy";
+        String error = "Too many coupons are being solved, try again later";
+        return new ApiError(code, status, message, error);
+    }
+
     /**
      * Default Handler. It deals with all other exceptions that don't have specific handlers.
      *
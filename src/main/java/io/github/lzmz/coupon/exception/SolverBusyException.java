@@ -0,0 +1,22 @@
+package io.github.lzmz.coupon.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the memory budget is not freed in time for a new coupon to start.
+ */
+@Getter
+public class SolverBusyException extends RuntimeException {
+
+    /**
+     * The time the coupon waited for the memory it needs.
+     */
+    private final Duration timeout;
+
+    public SolverBusyException(Duration timeout) {
+        super("No solver memory available within " + timeout.toMillis() + " ms");
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.lzmz.coupon.metrics;
+
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.dto.response.CouponSolutionDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the time taken to answer each coupon as {@code coupon.calculate}, whichever endpoint it was
+ * requested on, so that all of them add up to the same time series.
+ */
+public final class CalculateTimer {
+
+    /**
+     * The name of the timer.
+     */
+    public static final String NAME = "coupon.calculate";
+
+    private CalculateTimer() {
+    }
+
+    /**
+     * Records the time taken to answer a coupon, tagged by strategy, size and outcome. The outcome is
+     * {@code success}, {@code degraded} when some items were left without a price, or {@code error}.
+     *
+     * @param meterRegistry      the registry of the timer.
+     * @param couponCalculateDto the coupon calculation request body.
+     * @param couponSolutionDto  the solution of the coupon, or {@code null} if it failed.
+     * @param start              the {@link System#nanoTime()} at which the coupon was received.
+     */
+    public static void record(MeterRegistry meterRegistry, CouponCalculateDto couponCalculateDto,
+                              CouponSolutionDto couponSolutionDto, long start) {
+        String outcome = "error";
+
+        if (couponSolutionDto != null) {
+            List<String> unpricedIds = couponSolutionDto.getUnpricedItemsId();
+            outcome = unpricedIds == null || unpricedIds.isEmpty() ? "success" : "degraded";
+        }
+
+        Timer.builder(NAME)
+                .description("Time taken to answer a coupon request, item prices included")
+                .tag("strategy", couponSolutionDto == null ? "NONE" : couponSolutionDto.getStrategy().name())
+                .tag("outcome", outcome)
+                .tag(SizeBuckets.ITEMS_TAG, SizeBuckets.items(couponCalculateDto.getItemsId().size()))
+                .tag(SizeBuckets.AMOUNT_TAG, SizeBuckets.amount(couponCalculateDto.getAmount()))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
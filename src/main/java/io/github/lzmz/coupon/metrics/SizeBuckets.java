@@ -0,0 +1,61 @@
+package io.github.lzmz.coupon.metrics;
+
+/**
+ * Groups the sizes of the coupons in a few ranges, so that they can tag the published metrics without
+ * creating a time series per size.
+ */
+public final class SizeBuckets {
+
+    /**
+     * The tag of the number of items of a coupon.
+     */
+    public static final String ITEMS_TAG = "items";
+
+    /**
+     * The tag of the amount of a coupon.
+     */
+    public static final String AMOUNT_TAG = "amount";
+
+    private SizeBuckets() {
+    }
+
+    /**
+     * Retrieves the range of the given number of items.
+     *
+     * @param itemsNumber the number of items.
+     * @return the range, by powers of ten.
+     */
+    public static String items(int itemsNumber) {
+        if (itemsNumber <= 10) {
+            return "1-10";
+        } else if (itemsNumber <= 100) {
+            return "11-100";
+        } else if (itemsNumber <= 1_000) {
+            return "101-1000";
+        }
+
+        return "1001+";
+    }
+
+    /**
+     * Retrieves the range of the given amount.
+     *
+     * @param amount the amount of the coupon.
+     * @return the range, by powers of ten.
+     */
+    public static String amount(float amount) {
+        if (amount < 10) {
+            return "0-10";
+        } else if (amount < 100) {
+            return "10-100";
+        } else if (amount < 1_000) {
+            return "100-1000";
+        } else if (amount < 10_000) {
+            return "1000-10000";
+        } else if (amount < 100_000) {
+            return "10000-100000";
+        }
+
+        return "100000+";
+    }
+}
@@ -1,13 +1,52 @@
 package io.github.lzmz.coupon.redis;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.springframework.data.annotation.PersistenceConstructor;
 import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
 
-@RedisHash("Item")
+@RedisHash(Item.KEYSPACE)
 @Getter
-@AllArgsConstructor
 public class Item {
+
+    /**
+     * The keyspace of the items, which prefixes the key of each hash.
+     */
+    public static final String KEYSPACE = "Item";
+
+    /**
+     * The hash field that holds the price.
+     */
+    public static final String PRICE_FIELD = "price";
+
     private final String id;
     private final Float price;
+
+    /**
+     * The seconds the item is kept in the cache. When read, the seconds left before it expires.
+     * {@code null} when written with the default expiry, {@code coupon.item.time-to-live}, or read without one.
+     */
+    @TimeToLive
+    private final Long timeToLive;
+
+    public Item(String id, Float price) {
+        this(id, price, null);
+    }
+
+    @PersistenceConstructor
+    public Item(String id, Float price, Long timeToLive) {
+        this.id = id;
+        this.price = price;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Retrieves the key of the hash that holds the item with the given ID.
+     *
+     * @param id the ID of the item.
+     * @return the key of the item.
+     */
+    public static String key(String id) {
+        return KEYSPACE + ":" + id;
+    }
 }
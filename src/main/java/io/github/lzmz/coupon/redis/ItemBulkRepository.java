@@ -0,0 +1,26 @@
+package io.github.lzmz.coupon.redis;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk operations over the cached items, each one sent to Redis as a single pipeline.
+ */
+public interface ItemBulkRepository {
+
+    /**
+     * Retrieves the cached items with the given IDs in a single round trip.
+     *
+     * @param ids the IDs of the items to retrieve.
+     * @return the items found, with the seconds left before they expire. The IDs not cached are left out.
+     */
+    List<Item> findAllInBulk(Collection<String> ids);
+
+    /**
+     * Caches the given items in a single round trip. The items without a time to live expire after
+     * {@code coupon.item.time-to-live}.
+     *
+     * @param items the items to cache.
+     */
+    void saveAllInBulk(Collection<Item> items);
+}
@@ -0,0 +1,100 @@
+package io.github.lzmz.coupon.redis;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the same hashes as {@link ItemRepository}, so both can be used alike. The keyspace
+ * index set is not maintained since items are only ever looked up by ID.
+ */
+public class ItemBulkRepositoryImpl implements ItemBulkRepository {
+
+    private static final String ID_FIELD = "id";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long timeToLive;
+
+    public ItemBulkRepositoryImpl(StringRedisTemplate stringRedisTemplate, CouponProperties couponProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.timeToLive = couponProperties.getItem().getTimeToLive().getSeconds();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Item> findAllInBulk(Collection<String> ids) {
+        List<Item> items = new ArrayList<>();
+
+        if (ids.isEmpty()) {
+            return items;
+        }
+
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String id : ids) {
+                byte[] key = bytes(Item.key(id));
+                connection.hGet(key, bytes(Item.PRICE_FIELD));
+                connection.ttl(key);
+            }
+            return null;
+        });
+
+        Iterator<Object> reply = replies.iterator();
+        for (String id : ids) {
+            Object price = reply.next();
+            Long ttl = (Long) reply.next();
+
+            if (price != null) {
+                items.add(new Item(id, Float.valueOf(price.toString()), ttl != null && ttl >= 0 ? ttl : null));
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAllInBulk(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Item item : items) {
+                save(connection, item);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Writes the hash of the given item and sets its expiry.
+     *
+     * @param connection the connection to write to.
+     * @param item       the item to write.
+     */
+    private void save(RedisConnection connection, Item item) {
+        Map<byte[], byte[]> hash = new HashMap<>();
+        hash.put(bytes(ID_FIELD), bytes(item.getId()));
+        hash.put(bytes(Item.PRICE_FIELD), bytes(item.getPrice().toString()));
+        byte[] key = bytes(Item.key(item.getId()));
+        connection.hMSet(key, hash);
+        connection.expire(key, item.getTimeToLive() != null ? item.getTimeToLive() : timeToLive);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
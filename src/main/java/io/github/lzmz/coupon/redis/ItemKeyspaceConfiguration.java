@@ -0,0 +1,17 @@
+package io.github.lzmz.coupon.redis;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import org.springframework.data.redis.core.convert.KeyspaceConfiguration;
+
+/**
+ * Gives the items saved through {@link ItemRepository} without their own expiry the same one as
+ * {@link ItemBulkRepository#saveAllInBulk(java.util.Collection)}, so no write leaves a key that never expires.
+ */
+public class ItemKeyspaceConfiguration extends KeyspaceConfiguration {
+
+    public ItemKeyspaceConfiguration(CouponProperties couponProperties) {
+        KeyspaceSettings settings = new KeyspaceSettings(Item.class, Item.KEYSPACE);
+        settings.setTimeToLive(couponProperties.getItem().getTimeToLive().getSeconds());
+        addKeyspaceSettings(settings);
+    }
+}
@@ -1,7 +1,9 @@
 package io.github.lzmz.coupon.service;
 
 import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.solver.Solution;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +22,46 @@ public interface CouponService {
      */
     List<String> calculate(Map<String, Float> items, Float amount) throws InsufficientAmountException;
 
+    /**
+     * Same as {@link #calculate(Map, Float)}, but retrieves the whole {@link Solution}, which also
+     * tells the strategy that solved the coupon.
+     *
+     * @param items  a {@link Map} instance with ID-price as key-value.
+     * @param amount the value of the coupon that will not be exceeded.
+     * @return the {@link Solution} whose items maximize total spend without exceeding the {@code amount} provided.
+     * <p>{@code null} if the given {@code Map} of items is null or empty, or the amount is null.</p>
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     */
+    Solution solve(Map<String, Float> items, Float amount) throws InsufficientAmountException;
+
+    /**
+     * Same as {@link #solve(Map, Float)}, but accepts a {@link Solution} whose total is at least
+     * {@code 1 - epsilon} of the largest one when finding it is cheaper.
+     *
+     * @param items   a {@link Map} instance with ID-price as key-value.
+     * @param amount  the value of the coupon that will not be exceeded.
+     * @param epsilon the share of the largest total that may be lost, {@code null} for the exact solution.
+     * @return the {@link Solution} of the coupon, which tells whether it is exact and its bound.
+     * <p>{@code null} if the given {@code Map} of items is null or empty, or the amount is null.</p>
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     */
+    Solution solve(Map<String, Float> items, Float amount, Float epsilon) throws InsufficientAmountException;
+
+    /**
+     * Same as {@link #solve(Map, Float, Float)}, but answers with the best {@link Solution} found when the
+     * deadline expires, which tells whether it was proven the best one.
+     *
+     * @param items    a {@link Map} instance with ID-price as key-value.
+     * @param amount   the value of the coupon that will not be exceeded.
+     * @param epsilon  the share of the largest total that may be lost, {@code null} for the exact solution.
+     * @param deadline the time to solve the coupon, {@code null} for the configured one, zero to wait for
+     *                 the exact solution.
+     * @return the {@link Solution} of the coupon, which tells whether it is exact and its bound.
+     * <p>{@code null} if the given {@code Map} of items is null or empty, or the amount is null.</p>
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     */
+    Solution solve(Map<String, Float> items, Float amount, Float epsilon, Duration deadline) throws InsufficientAmountException;
+
     /**
      * Retrieves the total sum of the prices of the given items. {@code null} if any of the given IDs hasn't
      * a corresponding price in the provided {@code items}.
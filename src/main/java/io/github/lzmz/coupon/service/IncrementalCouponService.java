@@ -0,0 +1,43 @@
+package io.github.lzmz.coupon.service;
+
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.solver.Solution;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public interface IncrementalCouponService {
+
+    /**
+     * Same as {@link CouponService#solve(Map, Float)}, but remembers the work done for the given session,
+     * so a later request of the session that appends items to the same list and amount only processes the
+     * appended items.
+     *
+     * @param sessionId the ID of the session, chosen by the client.
+     * @param ids       the IDs of the items in the order the client appends them.
+     * @param items     a {@link Map} instance with ID-price as key-value. IDs missing from it are ignored.
+     * @param amount    the value of the coupon that will not be exceeded.
+     * @return the {@link Solution} whose items maximize total spend without exceeding the {@code amount} provided.
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     */
+    Solution solve(String sessionId, List<String> ids, Map<String, Float> items, Float amount) throws InsufficientAmountException;
+
+    /**
+     * Solves a coupon request: with its session as {@link #solve(String, List, Map, Float)} if it has one,
+     * which is always exact and answered at once, otherwise with
+     * {@link CouponService#solve(Map, Float, Float, Duration)}, approximately or within a deadline if it
+     * asks for it.
+     *
+     * @param sessionId the ID of the session, chosen by the client, {@code null} for none.
+     * @param ids       the IDs of the items in the order the client appends them.
+     * @param items     a {@link Map} instance with ID-price as key-value. IDs missing from it are ignored.
+     * @param amount    the value of the coupon that will not be exceeded.
+     * @param epsilon   the share of the largest total that may be lost, {@code null} for the exact solution.
+     * @param deadline  the time to solve the coupon, {@code null} for the configured one.
+     * @return the {@link Solution} whose items maximize total spend without exceeding the {@code amount} provided.
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     */
+    Solution solve(String sessionId, List<String> ids, Map<String, Float> items, Float amount, Float epsilon,
+                   Duration deadline) throws InsufficientAmountException;
+}
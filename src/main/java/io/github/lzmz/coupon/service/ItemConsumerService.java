@@ -1,5 +1,6 @@
 package io.github.lzmz.coupon.service;
 
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
 import io.github.lzmz.coupon.exception.NoItemPriceException;
 
 import java.util.List;
@@ -12,10 +13,22 @@ public interface ItemConsumerService {
      *
      * @param ids the IDs of the items from which the price will be recovered.
      * @return the price of each of the given items in {@code ids}.
-     * @throws NoItemPriceException if one or more of the items has no price.
+     * @throws NoItemPriceException                if one or more of the items has no price.
+     * @throws ExternalServiceUnavailableException if some price could not be retrieved because the
+     *                                             items API is unavailable.
      */
     Map<String, Float> getItemsPrice(List<String> ids) throws NoItemPriceException;
 
+    /**
+     * Retrieves the prices of the given items like {@link #getItemsPrice(List)}, but while the items API is
+     * unavailable, the items whose price is not cached are left unpriced instead of failing.
+     *
+     * @param ids the IDs of the items from which the price will be recovered.
+     * @return the prices found and the IDs left unpriced.
+     * @throws NoItemPriceException if one or more of the items has no price.
+     */
+    ItemPrices getAvailableItemsPrice(List<String> ids) throws NoItemPriceException;
+
     /**
      * Retrieves the price of the item associated with the given {@code id}.
      *
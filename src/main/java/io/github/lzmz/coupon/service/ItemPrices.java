@@ -0,0 +1,34 @@
+package io.github.lzmz.coupon.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The prices found for a list of items.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemPrices {
+
+    /**
+     * The ID-price of the items whose price was found.
+     */
+    private final Map<String, Float> prices;
+
+    /**
+     * The IDs of the items left without a price because the items API was unavailable.
+     */
+    private final List<String> unpricedIds;
+
+    /**
+     * Checks whether some of the items were left without a price.
+     *
+     * @return {@code true} if the prices are incomplete.
+     */
+    public boolean isDegraded() {
+        return !unpricedIds.isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.lzmz.coupon.service;
+
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ReactiveItemConsumerService {
+
+    /**
+     * Retrieves a {@link Map} instance with ID-price as key-value, without blocking.
+     *
+     * @param ids the IDs of the items from which the price will be recovered.
+     * @return a {@link Mono} with the price of each of the given items in {@code ids}. It fails with
+     * a {@link NoItemPriceException} if one or more of the items has no price, or with an
+     * {@link ExternalServiceUnavailableException} if some price could not be retrieved because the items
+     * API is unavailable.
+     */
+    Mono<Map<String, Float>> getItemsPrice(List<String> ids);
+
+    /**
+     * Retrieves the prices of the given items like {@link #getItemsPrice(List)}, but while the items API is
+     * unavailable, the items whose price is not cached are left unpriced instead of failing.
+     *
+     * @param ids the IDs of the items from which the price will be recovered.
+     * @return a {@link Mono} with the prices found and the IDs left unpriced. It fails with a
+     * {@link NoItemPriceException} if one or more of the items has no price.
+     */
+    Mono<ItemPrices> getAvailableItemsPrice(List<String> ids);
+}
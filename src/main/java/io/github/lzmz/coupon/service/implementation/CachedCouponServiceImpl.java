@@ -0,0 +1,163 @@
+package io.github.lzmz.coupon.service.implementation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the solutions of {@link CouponServiceImpl}, so an identical request is answered without
+ * solving it again.
+ * <p>Requests are identical when they have the same amount and the same items at the same prices, so a
+ * price change leads to a new solve instead of a stale answer.</p>
+ */
+@Primary
+@Service
+@ConditionalOnProperty(value = "coupon.result-cache.enabled", havingValue = "true")
+public class CachedCouponServiceImpl implements CouponService {
+
+    /**
+     * The name of the cache in the published metrics.
+     */
+    public static final String NAME = "coupon.results";
+
+    private final CouponService couponService;
+    private final Cache<Request, Solution> cache;
+
+    public CachedCouponServiceImpl(CouponServiceImpl couponService, CouponProperties couponProperties,
+                                   MeterRegistry meterRegistry) {
+        CouponProperties.ResultCache resultCache = couponProperties.getResultCache();
+        this.couponService = couponService;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(resultCache.getMaxItems())
+                .<Request, Solution>weigher((request, solution) -> request.ids.length + 1)
+                .expireAfterWrite(resultCache.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("coupon.results.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Ratio of the coupon requests answered with a remembered solution")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> calculate(Map<String, Float> items, Float amount) throws InsufficientAmountException {
+        Solution solution = solve(items, amount);
+        return solution == null ? null : solution.getItemsId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount) throws InsufficientAmountException {
+        return solve(items, amount, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount, Float epsilon) throws InsufficientAmountException {
+        return solve(items, amount, epsilon, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A solution cut short by its deadline is not remembered, so the coupon is solved again, perhaps
+     * with more time. A remembered solution answers any deadline.</p>
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount, Float epsilon, Duration deadline) throws InsufficientAmountException {
+        if (items == null || amount == null || items.isEmpty()) {
+            return couponService.solve(items, amount, epsilon, deadline);
+        }
+
+        Request request = new Request(items, amount, epsilon);
+        Solution solution = cache.getIfPresent(request);
+
+        if (solution == null) {
+            solution = couponService.solve(items, amount, epsilon, deadline);
+
+            if (solution.getStrategy() != Strategy.ANYTIME || solution.isExact()) {
+                cache.put(request, solution);
+            }
+        }
+
+        return solution;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Float calculateTotalAmount(List<String> ids, Map<String, Float> items) {
+        return couponService.calculateTotalAmount(ids, items);
+    }
+
+    /**
+     * The canonical form of a coupon request: its items sorted by ID, their prices, the amount and the
+     * accepted loss, zero when exact.
+     */
+    private static final class Request {
+
+        private final String[] ids;
+        private final float[] prices;
+        private final float amount;
+        private final float epsilon;
+        private final int hash;
+
+        private Request(Map<String, Float> items, float amount, Float epsilon) {
+            this.ids = items.keySet().toArray(new String[0]);
+            Arrays.sort(ids);
+            this.prices = new float[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                prices[i] = items.get(ids[i]);
+            }
+            this.amount = amount;
+            this.epsilon = epsilon == null ? 0 : epsilon;
+            this.hash = 31 * (31 * (31 * Arrays.hashCode(ids) + Arrays.hashCode(prices)) + Float.hashCode(amount))
+                    + Float.hashCode(this.epsilon);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Request)) {
+                return false;
+            }
+
+            Request request = (Request) o;
+            return hash == request.hash
+                    && Float.compare(amount, request.amount) == 0
+                    && Float.compare(epsilon, request.epsilon) == 0
+                    && Arrays.equals(ids, request.ids)
+                    && Arrays.equals(prices, request.prices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
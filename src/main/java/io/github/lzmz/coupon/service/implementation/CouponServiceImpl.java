@@ -1,14 +1,31 @@
 package io.github.lzmz.coupon.service.implementation;
 
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
 import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.metrics.SizeBuckets;
 import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.AnytimeSolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class CouponServiceImpl implements CouponService {
 
@@ -18,49 +35,156 @@ public class CouponServiceImpl implements CouponService {
      */
     private final static float DECIMALS = 100F;
 
+    /**
+     * The strategy tag of the coupons that could not be solved.
+     */
+    private static final String NO_STRATEGY = "NONE";
+
+    private final CouponSolver couponSolver;
+    private final MeterRegistry meterRegistry;
+    private final Duration deadline;
+
+    public CouponServiceImpl(CouponSolver couponSolver, MeterRegistry meterRegistry) {
+        this(couponSolver, meterRegistry, Duration.ZERO);
+    }
+
+    @Autowired
+    public CouponServiceImpl(CouponSolver couponSolver, MeterRegistry meterRegistry, CouponProperties couponProperties) {
+        this(couponSolver, meterRegistry, couponProperties.getSolver().getDeadline());
+    }
+
+    /**
+     * @param couponSolver  the solver of the coupons.
+     * @param meterRegistry the registry where the timings are published.
+     * @param deadline      the deadline of the coupons that do not set their own, zero to wait for the exact solution.
+     */
+    public CouponServiceImpl(CouponSolver couponSolver, MeterRegistry meterRegistry, Duration deadline) {
+        this.couponSolver = couponSolver;
+        this.meterRegistry = meterRegistry;
+        this.deadline = deadline;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public List<String> calculate(Map<String, Float> items, Float amount) throws InsufficientAmountException {
+        Solution solution = solve(items, amount);
+        return solution == null ? null : solution.getItemsId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount) throws InsufficientAmountException {
+        return solve(items, amount, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount, Float epsilon) throws InsufficientAmountException {
+        return solve(items, amount, epsilon, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A {@code null} deadline takes the configured one. The time taken is published as
+     * {@code coupon.solver}, tagged by strategy and size.</p>
+     */
+    @Override
+    public Solution solve(Map<String, Float> items, Float amount, Float epsilon, Duration deadline) throws InsufficientAmountException {
         if (items == null || amount == null || items.isEmpty()) {
             return null;
         }
 
+        long start = System.nanoTime();
+        Solution solution = null;
+
+        try {
+            solution = solveAffordable(items, amount, epsilon, deadline == null ? this.deadline : deadline);
+            return solution;
+        } finally {
+            Timer.builder("coupon.solver")
+                    .description("Time taken to solve a coupon, shrinking included")
+                    .tag("strategy", solution == null ? NO_STRATEGY : solution.getStrategy().name())
+                    .tag(SizeBuckets.ITEMS_TAG, SizeBuckets.items(items.size()))
+                    .tag(SizeBuckets.AMOUNT_TAG, SizeBuckets.amount(amount))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Solves the coupon with the items that can be bought with the given amount, in the order of the given
+     * {@link Map}, which decides the items picked among equally good solutions.
+     *
+     * @param items    a {@link Map} instance with ID-price as key-value.
+     * @param amount   the value of the coupon that will not be exceeded.
+     * @param epsilon  the share of the largest total that may be lost, {@code null} for the exact solution.
+     * @param deadline the time to solve the coupon, zero to wait for the exact solution.
+     * @return the {@link Solution} of the coupon.
+     * @throws InsufficientAmountException if none item can be bought with the given amount.
+     * @throws CouponTooLargeException     if the amount does not fit in the table.
+     */
+    private Solution solveAffordable(Map<String, Float> items, Float amount, Float epsilon, Duration deadline) throws InsufficientAmountException {
+        int couponValue = cents(amount);
         Map<String, Integer> intItems = items
                 .entrySet()
                 .stream()
                 .filter(map -> map.getValue() <= amount)
-                .collect(Collectors.toMap(Map.Entry::getKey, map -> (int) (map.getValue() * DECIMALS)));
+                .collect(Collectors.toMap(Map.Entry::getKey, map -> cents(map.getValue()), (first, second) -> first,
+                        LinkedHashMap::new));
 
         if (intItems.size() == 0) {
             throw new InsufficientAmountException(amount);
         }
 
         if (intItems.size() == 1) {
-            return new ArrayList<>(intItems.keySet());
+            return new Solution(new ArrayList<>(intItems.keySet()), Strategy.DIRECT, 0);
         }
 
         String[] ids = intItems.keySet().toArray(new String[0]);
         int[] prices = intItems.values().stream().mapToInt(Integer::intValue).toArray();
+        log.debug("Affordable items shrank the table from {} to {} cells",
+                cells(items.size(), couponValue), cells(ids.length, couponValue));
 
-        int itemsNumber = ids.length;
-        int couponValue = (int) (amount * DECIMALS);
-        int[][] solutions = new int[itemsNumber + 1][couponValue + 1];
-
-        for (int itemCount = 1; itemCount <= itemsNumber; itemCount++) {
-            for (int value = 1; value <= couponValue; value++) {
-                if (prices[itemCount - 1] > value) {
-                    solutions[itemCount][value] = solutions[itemCount - 1][value];
-                } else {
-                    int notConsidered = solutions[itemCount - 1][value];
-                    int considered = prices[itemCount - 1] + solutions[itemCount - 1][value - prices[itemCount - 1]];
-                    solutions[itemCount][value] = Math.max(notConsidered, considered);
-                }
+        int itemsNumber = dropWorthless(ids, prices);
+
+        if (itemsNumber < ids.length) {
+            log.debug("Items worth no cent shrank the table from {} to {} cells",
+                    cells(ids.length, couponValue), cells(itemsNumber, couponValue));
+            ids = Arrays.copyOf(ids, itemsNumber);
+            prices = Arrays.copyOf(prices, itemsNumber);
+        }
+
+        if (Arrays.stream(prices).asLongStream().sum() <= couponValue) {
+            log.debug("All {} items fit in the coupon value {}, no table needed", itemsNumber, couponValue);
+            List<String> all = new ArrayList<>(Arrays.asList(ids));
+            all.sort(String::compareTo);
+            return new Solution(all, Strategy.DIRECT, 0);
+        }
+
+        int divisor = gcd(prices);
+        if (divisor > 1) {
+            for (int item = 0; item < itemsNumber; item++) {
+                prices[item] /= divisor;
             }
+            log.debug("Common divisor {} shrank the table from {} to {} cells",
+                    divisor, cells(itemsNumber, couponValue), cells(itemsNumber, couponValue / divisor));
+            couponValue /= divisor;
         }
 
-        return getItemsForBestSolution(ids, prices, couponValue, solutions);
+        CouponSolver solver = deadline.isZero() ? couponSolver : new AnytimeSolver(couponSolver, deadline);
+        Solution solution = solver.solve(ids, prices, couponValue, epsilon == null ? 0 : epsilon);
+        countCells(solution.getStrategy(), itemsNumber, couponValue);
+        log.debug("Solved {} items for coupon value {} with {} strategy, peak memory {} bytes",
+                itemsNumber, couponValue, solution.getStrategy(), solution.getPeakMemory());
+
+        return solution;
     }
 
     /**
@@ -87,28 +211,104 @@ public class CouponServiceImpl implements CouponService {
     }
 
     /**
-     * Retrieves the elements that are part of the best solution found, sorted by the IDs.
+     * Publishes the cells of the dynamic programming table computed for a coupon as
+     * {@code coupon.solver.cells}. The strategies without a table of one cell per value of the coupon
+     * add none.
      *
-     * @param itemsId     an array of items ID.
-     * @param itemsPrice  an array of items price.
-     * @param couponValue the value of the coupon.
-     * @param solutions   the matrix containing the solutions.
-     * @return a list of the items that make up the best solution found.
+     * @param strategy    the strategy that solved the coupon.
+     * @param itemsNumber the number of items of the table.
+     * @param couponValue the value of the coupon of the table.
+     */
+    private void countCells(Strategy strategy, int itemsNumber, int couponValue) {
+        if (strategy == Strategy.MEET_IN_THE_MIDDLE || strategy == Strategy.BRANCH_AND_BOUND
+                || strategy == Strategy.APPROXIMATE || strategy == Strategy.ANYTIME) {
+            return;
+        }
+
+        Counter.builder("coupon.solver.cells")
+                .description("Cells of the dynamic programming tables computed")
+                .tag("strategy", strategy.name())
+                .register(meterRegistry)
+                .increment(cells(itemsNumber, couponValue));
+    }
+
+    /**
+     * Moves the items that can never be part of a solution to the end of the given arrays, which are the
+     * ones worth no cent, such as the free ones: the solvers never take them as they do not improve any sum.
+     * <p>No other item is dominated. The value of an item is its own price, so a cheaper item is not worse
+     * than a more expensive one, as it fills gaps that the other cannot, and items of the same price are
+     * interchangeable rather than dominated. The table is rather shrunk by dividing by the common divisor
+     * of the prices, and skipped when all the items fit in the coupon.</p>
+     *
+     * @param itemsId    an array of items ID.
+     * @param itemsPrice an array of items price.
+     * @return the number of items that may be part of a solution, which are kept at the beginning of the arrays.
+     */
+    private static int dropWorthless(String[] itemsId, int[] itemsPrice) {
+        int kept = 0;
+
+        for (int item = 0; item < itemsId.length; item++) {
+            if (itemsPrice[item] > 0) {
+                itemsId[kept] = itemsId[item];
+                itemsPrice[kept] = itemsPrice[item];
+                kept++;
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Retrieves the greatest common divisor of the given prices. Dividing every price and the coupon
+     * value by it keeps the same solutions, since every sum of prices is a multiple of it.
+     *
+     * @param itemsPrice an array of positive items price.
+     * @return the greatest common divisor of the prices.
      */
-    public List<String> getItemsForBestSolution(String[] itemsId, int[] itemsPrice, int couponValue, int[][] solutions) {
-        int value = couponValue;
-        int best = solutions[itemsPrice.length][couponValue];
-        List<String> items = new ArrayList<>();
-
-        for (int itemCount = itemsPrice.length; itemCount > 0 && best > 0; itemCount--) {
-            if (best != solutions[itemCount - 1][value]) {
-                items.add(itemsId[itemCount - 1]);
-                best -= itemsPrice[itemCount - 1];
-                value -= itemsPrice[itemCount - 1];
+    private static int gcd(int[] itemsPrice) {
+        int divisor = 0;
+
+        for (int price : itemsPrice) {
+            int rest = price;
+            while (rest != 0) {
+                int next = divisor % rest;
+                divisor = rest;
+                rest = next;
+            }
+
+            if (divisor == 1) {
+                break;
             }
         }
 
-        items.sort(String::compareTo);
-        return items;
+        return divisor;
+    }
+
+    /**
+     * Converts an amount or a price to cents, the values of the table, which rounds pennies down.
+     *
+     * @param value the amount or price.
+     * @return the value in cents.
+     * @throws CouponTooLargeException if the cents do not fit in an {@code int}.
+     */
+    static int cents(float value) {
+        float cents = value * DECIMALS;
+
+        if ((double) cents > Integer.MAX_VALUE) {
+            throw new CouponTooLargeException((long) (double) cents);
+        }
+
+        return (int) cents;
+    }
+
+    /**
+     * Retrieves the number of cells of the dynamic programming table.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the number of cells of the table.
+     */
+    private static long cells(int itemsNumber, int couponValue) {
+        return (long) itemsNumber * ((long) couponValue + 1);
     }
 }
@@ -0,0 +1,220 @@
+package io.github.lzmz.coupon.service.implementation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.Frontier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Keeps a {@link Frontier} per session in memory. A request whose items start with the items of the
+ * previous request of its session, at the same prices and for the same amount, reuses the rows already
+ * computed; any other request starts the session over.
+ * <p>The rows of a session are held against the solver memory budget from the request that computes them
+ * until the session is replaced, evicted or expires, the rows shared with the previous request of the
+ * session counting twice meanwhile. A request whose rows would take more than
+ * {@code coupon.solver.max-coupon-memory} is solved by {@link CouponService} instead.</p>
+ * <p>The rows are computed outside the session cache, on a copy of the rows of the previous request, which
+ * are never modified once kept. Concurrent requests of the same session are all solved, and the rows of
+ * the last one are kept.</p>
+ * <p>The requests solved by {@link CouponService} are given their items in the order of the request too,
+ * so a cart gets the same items with and without session. Expired sessions are dropped by a background
+ * thread, which gives their rows back to the budget without waiting for another request.</p>
+ */
+@Slf4j
+@Service
+public class IncrementalCouponServiceImpl implements IncrementalCouponService, AutoCloseable {
+
+    /**
+     * The name of the session cache in the published metrics.
+     */
+    public static final String NAME = "coupon.sessions";
+
+    private final CouponService couponService;
+    private final BudgetedSolver budget;
+    private final long maxCouponMemory;
+    private final ScheduledExecutorService expirer;
+    private final Cache<String, Frontier> sessions;
+    private final Counter reusedRows;
+    private final Counter computedRows;
+
+    /**
+     * @param couponService    the service of the requests solved without session.
+     * @param budget           the solver whose memory budget holds the rows of the sessions.
+     * @param couponProperties the application settings.
+     * @param meterRegistry    the registry where the session metrics are published.
+     */
+    public IncrementalCouponServiceImpl(CouponService couponService, BudgetedSolver budget,
+                                        CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        CouponProperties.Solver solver = couponProperties.getSolver();
+        this.couponService = couponService;
+        this.budget = budget;
+        this.maxCouponMemory = solver.getMaxCouponMemory().toBytes();
+        this.expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, NAME + "-expirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sessions = Caffeine.newBuilder()
+                .maximumWeight(solver.getSessionMaxMemory().toKilobytes())
+                .<String, Frontier>weigher((sessionId, frontier) -> (int) Math.min(Integer.MAX_VALUE, frontier.getMemory() / 1024))
+                .expireAfterAccess(solver.getSessionTimeToIdle())
+                .scheduler(Scheduler.forScheduledExecutorService(expirer))
+                .executor(Runnable::run)
+                .removalListener((String sessionId, Frontier frontier, RemovalCause cause) -> {
+                    if (frontier != null) {
+                        budget.release(frontier.getMemory());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, NAME);
+        this.reusedRows = Counter
+                .builder("coupon.solver.incremental.rows")
+                .tag("result", "reused")
+                .description("Table rows of the incremental solver taken from a previous request of the session")
+                .register(meterRegistry);
+        this.computedRows = Counter
+                .builder("coupon.solver.incremental.rows")
+                .tag("result", "computed")
+                .description("Table rows of the incremental solver computed for the request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String sessionId, List<String> ids, Map<String, Float> items, Float amount, Float epsilon,
+                          Duration deadline) throws InsufficientAmountException {
+        if (sessionId == null) {
+            return couponService.solve(inRequestOrder(ids, items), amount, epsilon, deadline);
+        }
+
+        return solve(sessionId, ids, items, amount);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A request with a single affordable item needs no table and is solved by {@link CouponService},
+     * as well as a request too large to be kept in a session.</p>
+     */
+    @Override
+    public Solution solve(String sessionId, List<String> ids, Map<String, Float> items, Float amount) throws InsufficientAmountException {
+        if (sessionId == null || ids == null || items == null || amount == null || items.isEmpty()) {
+            return couponService.solve(inRequestOrder(ids, items), amount);
+        }
+
+        List<String> affordableIds = new ArrayList<>();
+        List<Integer> affordablePrices = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Float price = items.get(id);
+
+            if (price != null && price <= amount) {
+                affordableIds.add(id);
+                affordablePrices.add(CouponServiceImpl.cents(price));
+            }
+        }
+
+        if (affordableIds.size() <= 1) {
+            return couponService.solve(inRequestOrder(ids, items), amount);
+        }
+
+        String[] itemsId = affordableIds.toArray(new String[0]);
+        int[] itemsPrice = affordablePrices.stream().mapToInt(Integer::intValue).toArray();
+        int couponValue = CouponServiceImpl.cents(amount);
+
+        if (Frontier.memory(itemsId.length, couponValue) > maxCouponMemory) {
+            log.debug("Session {} would take {} bytes, solved without session", sessionId, Frontier.memory(itemsId.length, couponValue));
+            return couponService.solve(inRequestOrder(ids, items), amount);
+        }
+
+        Frontier previous = sessions.getIfPresent(sessionId);
+        int common = previous == null || previous.getCouponValue() != couponValue
+                ? 0
+                : previous.commonPrefix(itemsId, itemsPrice);
+
+        if (previous == null || common < previous.size()) {
+            common = 0;
+        }
+
+        long memory = Frontier.memory(itemsId.length, couponValue);
+        budget.reserve(memory);
+        Frontier frontier;
+        Solution solution;
+
+        try {
+            frontier = common == 0 ? new Frontier(couponValue) : previous.prefix(common);
+
+            for (int item = common; item < itemsId.length; item++) {
+                frontier.append(itemsId[item], itemsPrice[item]);
+            }
+
+            solution = frontier.solve();
+        } catch (RuntimeException | Error e) {
+            budget.release(memory);
+            throw e;
+        }
+
+        sessions.put(sessionId, frontier);
+        reusedRows.increment(common);
+        computedRows.increment(itemsId.length - common);
+        log.debug("Session {} reused {} rows and computed {}", sessionId, common, itemsId.length - common);
+        return solution;
+    }
+
+    /**
+     * Stops dropping the expired sessions.
+     */
+    @Override
+    public void close() {
+        expirer.shutdownNow();
+    }
+
+    /**
+     * Orders the given prices like the items of the request, which is the order in which the sessions
+     * consider them.
+     *
+     * @param ids   the IDs of the items of the request, in order.
+     * @param items the ID-price of the items.
+     * @return the ID-price of the items, in the order of the request.
+     */
+    private static Map<String, Float> inRequestOrder(List<String> ids, Map<String, Float> items) {
+        if (ids == null || items == null) {
+            return items;
+        }
+
+        Map<String, Float> ordered = new LinkedHashMap<>();
+
+        for (String id : ids) {
+            Float price = items.get(id);
+
+            if (price != null) {
+                ordered.putIfAbsent(id, price);
+            }
+        }
+
+        items.forEach(ordered::putIfAbsent);
+        return ordered;
+    }
+}
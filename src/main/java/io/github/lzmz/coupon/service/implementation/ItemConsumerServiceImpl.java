@@ -1,28 +1,73 @@
 package io.github.lzmz.coupon.service.implementation;
 
-import io.github.lzmz.coupon.dto.response.ItemPriceDto;
+import io.github.lzmz.coupon.cache.ItemNearCache;
+import io.github.lzmz.coupon.cache.ItemRefresher;
+import io.github.lzmz.coupon.client.ItemClient;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
 import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.metrics.SizeBuckets;
 import io.github.lzmz.coupon.redis.Item;
 import io.github.lzmz.coupon.redis.ItemRepository;
 import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemConsumerServiceImpl implements ItemConsumerService {
 
-    private final WebClient webClient;
+    /**
+     * The stage that reads the prices kept in memory and in Redis.
+     */
+    private static final String CACHE_STAGE = "cache";
+
+    /**
+     * The stage that calls the items API for the prices missing from the caches.
+     */
+    private static final String HTTP_STAGE = "http";
+
+    /**
+     * The stage that writes the fetched prices back to the caches.
+     */
+    private static final String CACHE_WRITE_STAGE = "cache-write";
+
+    private final ItemClient itemClient;
     private final ItemRepository itemRepository;
+    private final ItemNearCache itemNearCache;
+    private final ItemRefresher itemRefresher;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary cacheHitRatio;
+    private final Counter degraded;
 
-    public ItemConsumerServiceImpl(WebClient webClient, ItemRepository itemRepository) {
-        this.webClient = webClient;
+    public ItemConsumerServiceImpl(ItemClient itemClient, ItemRepository itemRepository, ItemNearCache itemNearCache,
+                                   ItemRefresher itemRefresher, MeterRegistry meterRegistry) {
+        this.itemClient = itemClient;
         this.itemRepository = itemRepository;
+        this.itemNearCache = itemNearCache;
+        this.itemRefresher = itemRefresher;
+        this.meterRegistry = meterRegistry;
+        this.cacheHitRatio = DistributionSummary
+                .builder("coupon.items.cache.hit.ratio")
+                .description("Ratio of the item prices of a request found in the cache")
+                .register(meterRegistry);
+        this.degraded = Counter
+                .builder("coupon.items.degraded")
+                .description("Requests answered with only the cached prices because the items API was unavailable")
+                .register(meterRegistry);
     }
 
     /**
@@ -30,48 +75,114 @@ public class ItemConsumerServiceImpl implements ItemConsumerService {
      */
     @Override
     public Map<String, Float> getItemsPrice(List<String> ids) throws NoItemPriceException {
-        Map<String, Float> items = new HashMap<>();
-        List<String> errors = new ArrayList<>();
-
-        for (String id : ids) {
-            try {
-                Float price = getItemPrice(id);
-                items.put(id, price);
-            } catch (NoItemPriceException ex) {
-                errors.add(id);
-            }
-        }
+        ItemPrices itemPrices = getAvailableItemsPrice(ids);
 
-        if (!errors.isEmpty()) {
-            throw new NoItemPriceException(errors);
+        if (itemPrices.isDegraded()) {
+            throw new ExternalServiceUnavailableException();
         }
 
-        return items;
+        return itemPrices.getPrices();
     }
 
     /**
      * {@inheritDoc}
+     * <p>The prices kept in memory are used first. The rest are read from Redis in a single round trip,
+     * the prices missing from it are fetched concurrently, and then written back in another round trip.
+     * The prices read from Redis that are about to expire are refreshed in the background.</p>
+     * <p>When the items API rejects the calls, the prices missing from the caches are left unpriced.</p>
+     * <p>The fetches are awaited with {@code blockLast()}, which rethrows unchecked exceptions as they are
+     * but wraps checked ones. That is why the item client fails with unchecked exceptions, such as
+     * {@link ExternalServiceTimeoutException}, which then reach the exception handlers as thrown.</p>
+     * <p>The time spent reading the caches, calling the items API and writing the fetched prices back is
+     * published as {@code coupon.items.price}, tagged by stage.</p>
      */
     @Override
-    public Float getItemPrice(String id) throws NoItemPriceException {
-        Optional<Item> itemCache = itemRepository.findById(id);
+    public ItemPrices getAvailableItemsPrice(List<String> ids) throws NoItemPriceException {
+        long start = System.nanoTime();
+        Set<String> distinctIds = new LinkedHashSet<>(ids);
+        Map<String, Float> items = new HashMap<>(itemNearCache.getAllPresent(distinctIds));
+        Set<String> remoteIds = distinctIds
+                .stream()
+                .filter(id -> !items.containsKey(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        if (itemCache.isPresent()) {
-            return itemCache.get().getPrice();
+        if (!remoteIds.isEmpty()) {
+            List<Item> cached = itemRepository.findAllInBulk(remoteIds);
+            cached.forEach(item -> items.put(item.getId(), item.getPrice()));
+            itemNearCache.putAll(cached);
+            itemRefresher.refreshExpiring(cached);
         }
 
-        ItemPriceDto itemPriceDto = this.webClient
-                .get()
-                .uri(builder -> builder.path(id).build())
-                .retrieve()
-                .bodyToMono(ItemPriceDto.class)
-                .block();
+        if (!distinctIds.isEmpty()) {
+            cacheHitRatio.record((double) items.size() / distinctIds.size());
+            start = record(CACHE_STAGE, distinctIds.size(), start);
+        }
+
+        List<String> misses = remoteIds
+                .stream()
+                .filter(id -> !items.containsKey(id))
+                .collect(Collectors.toList());
+        List<Item> fetched = new ArrayList<>();
+        boolean unavailable = false;
 
-        if (itemPriceDto == null || itemPriceDto.getPrice() == null) {
-            throw new NoItemPriceException(id);
+        try {
+            itemClient.fetchItems(misses)
+                    .doOnNext(fetched::add)
+                    .blockLast();
+        } catch (ExternalServiceUnavailableException e) {
+            unavailable = true;
+        } finally {
+            if (!misses.isEmpty()) {
+                start = record(HTTP_STAGE, misses.size(), start);
+                itemRepository.saveAllInBulk(fetched);
+                itemNearCache.putAllWritten(fetched);
+                record(CACHE_WRITE_STAGE, fetched.size(), start);
+            }
         }
 
-        itemRepository.save(new Item(id, itemPriceDto.getPrice()));
-        return itemPriceDto.getPrice();
+        fetched.forEach(item -> items.put(item.getId(), item.getPrice()));
+        List<String> errors = misses
+                .stream()
+                .filter(id -> !items.containsKey(id))
+                .collect(Collectors.toList());
+
+        if (unavailable) {
+            degraded.increment();
+            return new ItemPrices(items, errors);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new NoItemPriceException(errors);
+        }
+
+        return new ItemPrices(items, Collections.emptyList());
+    }
+
+    /**
+     * Publishes the time taken by a stage of the price lookup.
+     *
+     * @param stage       the stage.
+     * @param itemsNumber the number of items handled by the stage.
+     * @param start       the {@link System#nanoTime()} at which the stage started.
+     * @return the {@link System#nanoTime()} at which the stage ended, from which the next one starts.
+     */
+    private long record(String stage, int itemsNumber, long start) {
+        long end = System.nanoTime();
+        Timer.builder("coupon.items.price")
+                .description("Time taken by each stage of the lookup of the item prices")
+                .tag("stage", stage)
+                .tag(SizeBuckets.ITEMS_TAG, SizeBuckets.items(itemsNumber))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(end - start, TimeUnit.NANOSECONDS);
+        return end;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Float getItemPrice(String id) throws NoItemPriceException {
+        return getItemsPrice(Collections.singletonList(id)).get(id);
     }
 }
@@ -0,0 +1,136 @@
+package io.github.lzmz.coupon.service.implementation;
+
+import io.github.lzmz.coupon.client.ItemClient;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.redis.Item;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes the same cached items as {@link ItemConsumerServiceImpl}, through the reactive Redis
+ * driver instead of the repository.
+ */
+@Service
+public class ReactiveItemConsumerServiceImpl implements ReactiveItemConsumerService {
+
+    private static final String ID_FIELD = "id";
+
+    private final ItemClient itemClient;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final ReactiveHashOperations<String, String, String> hashOperations;
+    private final Duration timeToLive;
+    private final DistributionSummary cacheHitRatio;
+    private final Counter degraded;
+
+    public ReactiveItemConsumerServiceImpl(ItemClient itemClient, ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                           CouponProperties couponProperties, MeterRegistry meterRegistry) {
+        this.itemClient = itemClient;
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.hashOperations = reactiveStringRedisTemplate.opsForHash();
+        this.timeToLive = couponProperties.getItem().getTimeToLive();
+        this.cacheHitRatio = DistributionSummary
+                .builder("coupon.items.cache.hit.ratio")
+                .description("Ratio of the item prices of a request found in the cache")
+                .register(meterRegistry);
+        this.degraded = Counter
+                .builder("coupon.items.degraded")
+                .description("Requests answered with only the cached prices because the items API was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Map<String, Float>> getItemsPrice(List<String> ids) {
+        return getAvailableItemsPrice(ids).flatMap(itemPrices -> itemPrices.isDegraded()
+                ? Mono.error(new ExternalServiceUnavailableException())
+                : Mono.just(itemPrices.getPrices()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>When the items API rejects the calls, the prices missing from the cache are left unpriced, and the
+     * prices fetched until then are still cached.</p>
+     */
+    @Override
+    public Mono<ItemPrices> getAvailableItemsPrice(List<String> ids) {
+        Set<String> distinctIds = new LinkedHashSet<>(ids);
+
+        return Flux.fromIterable(distinctIds)
+                .flatMap(id -> hashOperations.get(Item.key(id), Item.PRICE_FIELD).map(price -> new Item(id, Float.valueOf(price))))
+                .collectMap(Item::getId, Item::getPrice, HashMap::new)
+                .flatMap(items -> {
+                    if (!distinctIds.isEmpty()) {
+                        cacheHitRatio.record((double) items.size() / distinctIds.size());
+                    }
+
+                    List<String> misses = distinctIds
+                            .stream()
+                            .filter(id -> !items.containsKey(id))
+                            .collect(Collectors.toList());
+                    List<Item> fetched = new ArrayList<>();
+
+                    return itemClient.fetchItems(misses)
+                            .doOnNext(fetched::add)
+                            .then(Mono.just(false))
+                            .onErrorResume(ExternalServiceUnavailableException.class, e -> Mono.just(true))
+                            .flatMap(unavailable -> save(fetched).then(Mono.fromCallable(() -> {
+                                fetched.forEach(item -> items.put(item.getId(), item.getPrice()));
+                                List<String> errors = misses
+                                        .stream()
+                                        .filter(id -> !items.containsKey(id))
+                                        .collect(Collectors.toList());
+
+                                if (unavailable) {
+                                    degraded.increment();
+                                    return new ItemPrices(items, errors);
+                                }
+
+                                if (!errors.isEmpty()) {
+                                    throw new NoItemPriceException(errors);
+                                }
+
+                                return new ItemPrices(items, Collections.emptyList());
+                            })));
+                });
+    }
+
+    /**
+     * Caches the given items for {@code coupon.item.time-to-live}.
+     *
+     * @param items the items to cache.
+     * @return a {@link Mono} that completes once every item is written.
+     */
+    private Mono<Void> save(List<Item> items) {
+        return Flux.fromIterable(items)
+                .flatMap(item -> {
+                    Map<String, String> hash = new HashMap<>();
+                    hash.put(ID_FIELD, item.getId());
+                    hash.put(Item.PRICE_FIELD, item.getPrice().toString());
+                    return hashOperations.putAll(Item.key(item.getId()), hash)
+                            .then(reactiveStringRedisTemplate.expire(Item.key(item.getId()), timeToLive));
+                })
+                .then();
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.lzmz.coupon.solver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The estimated cost of solving a coupon with a given strategy.
+ */
+@Getter
+@AllArgsConstructor
+public class Cost {
+
+    /**
+     * A cost too high to be ever chosen.
+     */
+    public static final Cost UNAFFORDABLE = new Cost(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * The approximate number of elementary steps.
+     */
+    private final long operations;
+
+    /**
+     * The approximate number of bytes allocated.
+     */
+    private final long memory;
+}
@@ -0,0 +1,47 @@
+package io.github.lzmz.coupon.solver;
+
+public interface CouponSolver {
+
+    /**
+     * Retrieves the subset of the given items whose total price is the largest one that does not
+     * exceed the {@code couponValue}.
+     * <p>Both {@code itemsId} and {@code itemsPrice} are indexed alike, and every price is expected
+     * to be lower than or equal to the {@code couponValue}.</p>
+     *
+     * @param itemsId     an array of items ID.
+     * @param itemsPrice  an array of items price.
+     * @param couponValue the value of the coupon.
+     * @return the {@link Solution} found, with its items sorted by ID.
+     */
+    Solution solve(String[] itemsId, int[] itemsPrice, int couponValue);
+
+    /**
+     * Same as {@link #solve(String[], int[], int)}, but accepts a subset whose total is at least
+     * {@code 1 - epsilon} of the largest one, if the solver approximates. The exact solvers ignore it.
+     *
+     * @param itemsId     an array of items ID.
+     * @param itemsPrice  an array of items price.
+     * @param couponValue the value of the coupon.
+     * @param epsilon     the share of the largest total that may be lost, 0 for the exact subset.
+     * @return the {@link Solution} found, with its items sorted by ID.
+     */
+    default Solution solve(String[] itemsId, int[] itemsPrice, int couponValue, float epsilon) {
+        return solve(itemsId, itemsPrice, couponValue);
+    }
+
+    /**
+     * Estimates the cost of solving a coupon of the given size, without solving it.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the estimated {@link Cost}.
+     */
+    Cost estimate(int itemsNumber, int couponValue);
+
+    /**
+     * Retrieves the strategy implemented by this solver.
+     *
+     * @return the {@link Strategy} of the solver.
+     */
+    Strategy getStrategy();
+}
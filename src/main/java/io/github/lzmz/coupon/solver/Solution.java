@@ -0,0 +1,52 @@
+package io.github.lzmz.coupon.solver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The outcome of a solver run.
+ */
+@Getter
+@AllArgsConstructor
+public class Solution {
+
+    /**
+     * The bound of the solutions known to be the best ones.
+     */
+    public static final float EXACT = 1F;
+
+    /**
+     * The IDs of the items that make up the solution, sorted.
+     */
+    private final List<String> itemsId;
+
+    /**
+     * The strategy that produced the solution.
+     */
+    private final Strategy strategy;
+
+    /**
+     * The peak number of bytes allocated by the solver for its working tables.
+     */
+    private final long peakMemory;
+
+    /**
+     * The share of the best total that the total of the items is known to reach.
+     */
+    private final float bound;
+
+    public Solution(List<String> itemsId, Strategy strategy, long peakMemory) {
+        this(itemsId, strategy, peakMemory, EXACT);
+    }
+
+    /**
+     * Tells whether the total of the items is known to be the best one.
+     *
+     * @return {@code true} if the solution is exact.
+     */
+    public boolean isExact() {
+        return bound >= EXACT;
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.lzmz.coupon.solver;
+
+/**
+ * The algorithms available to solve a coupon.
+ */
+public enum Strategy {
+
+    /**
+     * Picks, for each coupon, the strategy with the lowest estimated cost.
+     */
+    AUTO,
+
+    /**
+     * No table at all, because there is a single item or all of them fit in the coupon.
+     */
+    DIRECT,
+
+    /**
+     * Dynamic programming over the whole {@code (n + 1) x (couponValue + 1)} table.
+     */
+    MATRIX,
+
+    /**
+     * Dynamic programming over a single rolling row plus a bitset of take/skip decisions.
+     */
+    ROLLING,
+
+    /**
+     * Subset-sum reachability over {@code long} bitsets, shifted and merged 64 values at a time.
+     */
+    BITSET,
+
+    /**
+     * Like {@link #ROLLING}, but each row is split in chunks computed in parallel.
+     */
+    PARALLEL,
+
+    /**
+     * Enumeration of the subset sums of each half of the items, merged sorted.
+     */
+    MEET_IN_THE_MIDDLE,
+
+    /**
+     * Depth-first search of the subsets from the most expensive item, pruned by the items left and
+     * stopped by a sum that fills the coupon.
+     */
+    BRANCH_AND_BOUND,
+
+    /**
+     * Like {@link #BITSET}, but the rows of a session are kept between requests and only the rows of
+     * the items appended since the last one are computed.
+     */
+    INCREMENTAL,
+
+    /**
+     * Dynamic programming over prices scaled down to about {@code 2n / epsilon} values, whose total is
+     * at least {@code 1 - epsilon} of the best one.
+     */
+    APPROXIMATE,
+
+    /**
+     * Greedy, swaps, then branch and bound over the items sorted by price, until a deadline. The best
+     * solution found is returned, proven or not.
+     */
+    ANYTIME
+}
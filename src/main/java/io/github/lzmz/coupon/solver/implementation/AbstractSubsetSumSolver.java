@@ -0,0 +1,58 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for the solvers that do not build a table but answer subset-sum queries over the first
+ * items instead.
+ * <p>The best value is the largest sum of all the items that does not exceed the coupon. Then, going
+ * from the last item to the first one, an item is taken when the remaining sum cannot be reached
+ * without it, which picks the same items as {@link MatrixSolver}.</p>
+ */
+public abstract class AbstractSubsetSumSolver implements CouponSolver {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        long best = maxSum(itemsPrice, itemsPrice.length, couponValue);
+        List<String> items = new ArrayList<>();
+
+        for (int itemCount = itemsPrice.length; itemCount > 0 && best > 0; itemCount--) {
+            if (!isReachable(itemsPrice, itemCount - 1, best)) {
+                items.add(itemsId[itemCount - 1]);
+                best -= itemsPrice[itemCount - 1];
+            }
+        }
+
+        items.sort(String::compareTo);
+        return new Solution(items, getStrategy(), estimate(itemsId.length, couponValue).getMemory());
+    }
+
+    /**
+     * Retrieves the largest sum of the first {@code itemCount} prices that does not exceed the {@code limit}.
+     *
+     * @param itemsPrice an array of items price.
+     * @param itemCount  the number of items, from the first one, to consider.
+     * @param limit      the value that the sum must not exceed.
+     * @return the largest sum found.
+     */
+    protected abstract long maxSum(int[] itemsPrice, int itemCount, long limit);
+
+    /**
+     * Checks whether some of the first {@code itemCount} prices add up exactly to the {@code target}.
+     *
+     * @param itemsPrice an array of items price.
+     * @param itemCount  the number of items, from the first one, to consider.
+     * @param target     the sum to reach.
+     * @return {@code true} if the target can be reached.
+     */
+    protected boolean isReachable(int[] itemsPrice, int itemCount, long target) {
+        return maxSum(itemsPrice, itemCount, target) == target;
+    }
+}
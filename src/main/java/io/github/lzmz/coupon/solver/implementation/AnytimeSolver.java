@@ -0,0 +1,292 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Solves the coupon within a deadline. The coupons that the exact solver is expected to solve well
+ * within the deadline are left to it. The others get a first solution at once, with the items taken
+ * from the most expensive one while they fit, then improved by swapping a taken item for a more
+ * expensive one left out. The items sorted by price are then searched with branch and bound until
+ * the deadline, keeping the best solution found.
+ * <p>A search that ends before the deadline, or that fills the coupon, proves its solution the best
+ * one. Otherwise the bound of the {@link Solution} is its total over the coupon value, or over the
+ * total of all the items if lower.</p>
+ */
+@Slf4j
+public class AnytimeSolver implements CouponSolver {
+
+    /**
+     * The number of elementary steps of the exact solvers assumed to take a millisecond, on the safe side.
+     */
+    public static final long OPERATIONS_PER_MILLI = 100_000;
+
+    /**
+     * The number of nodes of the search between two reads of the clock, a power of two.
+     */
+    private static final int CHECK_EVERY = 1 << 10;
+
+    private static final byte ENTER = 0;
+    private static final byte TAKEN = 1;
+    private static final byte SKIPPED = 2;
+
+    private final CouponSolver exact;
+    private final Duration deadline;
+
+    /**
+     * @param exact    the solver of the coupons expected to be solved within half the deadline, or
+     *                 {@code null} to always search.
+     * @param deadline the time after which the best solution found is returned.
+     */
+    public AnytimeSolver(CouponSolver exact, Duration deadline) {
+        this.exact = exact;
+        this.deadline = deadline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        return solve(itemsId, itemsPrice, couponValue, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The search also stops once its total is known to be at least {@code 1 - epsilon} of the best one.</p>
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue, float epsilon) {
+        long stop = System.nanoTime() + deadline.toNanos();
+
+        if (exact != null && exact.estimate(itemsId.length, couponValue).getOperations() <= OPERATIONS_PER_MILLI * deadline.toMillis() / 2) {
+            try {
+                return exact.solve(itemsId, itemsPrice, couponValue, epsilon);
+            } catch (CouponTooLargeException e) {
+                log.debug("No exact solver for {} items and coupon value {}, searching", itemsId.length, couponValue);
+            }
+        }
+
+        return new Search(itemsPrice, couponValue, epsilon, stop).run(itemsId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The search takes no table, and runs until the deadline at most.</p>
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        return new Cost(OPERATIONS_PER_MILLI * deadline.toMillis(), (long) itemsNumber * (3 * Integer.BYTES + 3));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.ANYTIME;
+    }
+
+    /**
+     * The state of the search of a coupon, over its items sorted by price from the most expensive.
+     */
+    private final class Search {
+
+        private final int[] order;
+        private final int[] price;
+        private final long[] suffix;
+        private final int[] nextDistinct;
+        private final int couponValue;
+        private final long upper;
+        private final long target;
+        private final long stop;
+        private final boolean[] best;
+        private long bestTotal;
+
+        private Search(int[] itemsPrice, int couponValue, float epsilon, long stop) {
+            int itemsNumber = itemsPrice.length;
+            Integer[] sorted = new Integer[itemsNumber];
+            for (int item = 0; item < itemsNumber; item++) {
+                sorted[item] = item;
+            }
+            Arrays.sort(sorted, Comparator.comparingInt((Integer item) -> itemsPrice[item]).reversed());
+
+            this.order = new int[itemsNumber];
+            this.price = new int[itemsNumber];
+            this.suffix = new long[itemsNumber + 1];
+            this.nextDistinct = new int[itemsNumber];
+
+            for (int rank = 0; rank < itemsNumber; rank++) {
+                order[rank] = sorted[rank];
+                price[rank] = itemsPrice[sorted[rank]];
+            }
+
+            for (int rank = itemsNumber - 1; rank >= 0; rank--) {
+                suffix[rank] = suffix[rank + 1] + price[rank];
+                nextDistinct[rank] = rank + 1 < itemsNumber && price[rank + 1] == price[rank] ? nextDistinct[rank + 1] : rank + 1;
+            }
+
+            this.couponValue = couponValue;
+            this.upper = Math.min(couponValue, suffix[0]);
+            this.target = epsilon > 0 ? (long) Math.ceil((1 - epsilon) * upper) : upper;
+            this.stop = stop;
+            this.best = new boolean[itemsNumber];
+        }
+
+        private Solution run(String[] itemsId) {
+            greedy();
+            swap();
+            boolean proven = bestTotal >= upper || branchAndBound();
+            List<String> items = new ArrayList<>();
+
+            for (int rank = 0; rank < best.length; rank++) {
+                if (best[rank]) {
+                    items.add(itemsId[order[rank]]);
+                }
+            }
+
+            items.sort(String::compareTo);
+            float bound = proven ? Solution.EXACT : Math.min(Solution.EXACT, (float) bestTotal / upper);
+            log.debug("Searched {} items for coupon value {}, total {}, proven {}", best.length, couponValue, bestTotal, proven);
+            return new Solution(items, getStrategy(), estimate(best.length, couponValue).getMemory(), bound);
+        }
+
+        /**
+         * Takes the items from the most expensive one while they fit.
+         */
+        private void greedy() {
+            for (int rank = 0; rank < price.length; rank++) {
+                if (bestTotal + price[rank] <= couponValue) {
+                    best[rank] = true;
+                    bestTotal += price[rank];
+                }
+            }
+        }
+
+        /**
+         * Replaces a taken item by the most expensive item left out that still fits instead, for as long
+         * as the total grows, adding the items that fit after each swap.
+         */
+        private void swap() {
+            boolean improved = true;
+
+            while (improved && bestTotal < target && System.nanoTime() - stop < 0) {
+                improved = false;
+                long room = couponValue - bestTotal;
+                int out = -1;
+                int in = -1;
+                long gain = 0;
+
+                for (int taken = 0; taken < price.length; taken++) {
+                    if (!best[taken]) {
+                        continue;
+                    }
+
+                    for (int left = 0; left < taken; left++) {
+                        long difference = price[left] - price[taken];
+
+                        if (!best[left] && difference > gain && difference <= room) {
+                            out = taken;
+                            in = left;
+                            gain = difference;
+                            break;
+                        }
+                    }
+                }
+
+                if (out >= 0) {
+                    best[out] = false;
+                    best[in] = true;
+                    bestTotal += gain;
+                    improved = true;
+
+                    for (int rank = 0; rank < price.length; rank++) {
+                        if (!best[rank] && bestTotal + price[rank] <= couponValue) {
+                            best[rank] = true;
+                            bestTotal += price[rank];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Searches the subsets depth first, taking each item before skipping it, and prunes the branches
+         * whose items left cannot beat the best total. Skipping an item skips the next ones of the same
+         * price too, as taking any of them is the same as taking the first one.
+         *
+         * @return {@code true} if the search ended before the deadline, so the best total is the largest one.
+         */
+        private boolean branchAndBound() {
+            int itemsNumber = price.length;
+            boolean[] current = new boolean[itemsNumber];
+            int[] rankAt = new int[itemsNumber + 1];
+            byte[] stateAt = new byte[itemsNumber + 1];
+            int top = 0;
+            long sum = 0;
+            long nodes = 0;
+
+            while (top >= 0) {
+                int rank = rankAt[top];
+
+                if (stateAt[top] == ENTER) {
+                    if ((++nodes & (CHECK_EVERY - 1)) == 0 && System.nanoTime() - stop > 0) {
+                        return false;
+                    }
+
+                    if (sum > bestTotal) {
+                        System.arraycopy(current, 0, best, 0, itemsNumber);
+                        bestTotal = sum;
+
+                        if (bestTotal >= target) {
+                            return bestTotal >= upper;
+                        }
+                    }
+
+                    if (rank == itemsNumber || sum + suffix[rank] <= bestTotal) {
+                        top--;
+                        continue;
+                    }
+
+                    stateAt[top] = TAKEN;
+
+                    if (sum + price[rank] <= couponValue) {
+                        current[rank] = true;
+                        sum += price[rank];
+                        top++;
+                        rankAt[top] = rank + 1;
+                        stateAt[top] = ENTER;
+                        continue;
+                    }
+                }
+
+                if (stateAt[top] == TAKEN) {
+                    if (current[rank]) {
+                        current[rank] = false;
+                        sum -= price[rank];
+                    }
+
+                    stateAt[top] = SKIPPED;
+                    top++;
+                    rankAt[top] = nextDistinct[rank];
+                    stateAt[top] = ENTER;
+                    continue;
+                }
+
+                top--;
+            }
+
+            return true;
+        }
+    }
+}
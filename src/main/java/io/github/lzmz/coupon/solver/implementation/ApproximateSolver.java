@@ -0,0 +1,181 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Solves the coupon approximately, with a total of at least {@code (1 - epsilon)} of the best one. The
+ * prices are divided by a scale of {@code epsilon * couponValue / (2 * n)}, rounded down, and the table
+ * keeps, for each scaled total, the lowest real total that reaches it. The table has about
+ * {@code 2 * n / epsilon} values per item whatever the coupon value.
+ * <p>Each item loses less than a scale unit, so the total loses less than {@code epsilon / 2} of the
+ * coupon value. When the items do not all fit, the best total is at least half the coupon value, as any
+ * item that does not fit after a total under the half fits on its own: the loss is then less than
+ * {@code epsilon} of the best total. The items left out that still fit are added afterwards.</p>
+ */
+public class ApproximateSolver implements CouponSolver {
+
+    private final float epsilon;
+
+    /**
+     * @param epsilon the share of the best total that may be lost, between 0 and 1 exclusive.
+     */
+    public ApproximateSolver(float epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be between 0 and 1, not " + epsilon);
+        }
+
+        this.epsilon = epsilon;
+    }
+
+    public float getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * Retrieves a solver that loses up to the given share of the best total.
+     *
+     * @param epsilon the share of the best total that may be lost, between 0 and 1 exclusive.
+     * @return this solver if it has the same epsilon, a new one otherwise.
+     */
+    public ApproximateSolver withEpsilon(float epsilon) {
+        return epsilon == this.epsilon ? this : new ApproximateSolver(epsilon);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The bound of the {@link Solution} is the share of the best total that its total is known to
+     * reach, never lower than {@code 1 - epsilon}. A solution with a scale of one is exact.</p>
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        int itemsNumber = itemsId.length;
+        int scale = scale(itemsNumber, couponValue);
+        int levels = couponValue / scale;
+        int[] lightest = new int[levels + 1];
+        long[][] taken = new long[itemsNumber][RollingSolver.words(levels)];
+        Arrays.fill(lightest, Integer.MAX_VALUE);
+        lightest[0] = 0;
+
+        for (int item = 0; item < itemsNumber; item++) {
+            int price = itemsPrice[item];
+            int level = price / scale;
+            long[] takenRow = taken[item];
+
+            if (level == 0) {
+                continue;
+            }
+
+            for (int value = levels; value >= level; value--) {
+                int previous = lightest[value - level];
+                long sum = (long) previous + price;
+
+                if (previous != Integer.MAX_VALUE && sum <= couponValue && sum < lightest[value]) {
+                    lightest[value] = (int) sum;
+                    takenRow[value >>> 6] |= 1L << value;
+                }
+            }
+        }
+
+        int best = levels;
+        while (lightest[best] == Integer.MAX_VALUE) {
+            best--;
+        }
+
+        boolean[] chosen = new boolean[itemsNumber];
+        long total = lightest[best];
+
+        for (int item = itemsNumber - 1, value = best; item >= 0 && value > 0; item--) {
+            if ((taken[item][value >>> 6] & (1L << value)) != 0) {
+                chosen[item] = true;
+                value -= itemsPrice[item] / scale;
+            }
+        }
+
+        total += fill(itemsPrice, chosen, couponValue - total);
+        List<String> items = new ArrayList<>();
+
+        for (int item = 0; item < itemsNumber; item++) {
+            if (chosen[item]) {
+                items.add(itemsId[item]);
+            }
+        }
+
+        items.sort(String::compareTo);
+        long upper = Math.min(couponValue, (long) scale * (best + itemsNumber));
+        float bound = scale == 1 ? Solution.EXACT : Math.max(1 - epsilon, Math.min(Solution.EXACT, (float) total / upper));
+        return new Solution(items, getStrategy(), estimate(itemsNumber, couponValue).getMemory(), bound);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue, float epsilon) {
+        return epsilon > 0 ? withEpsilon(epsilon).solve(itemsId, itemsPrice, couponValue) : solve(itemsId, itemsPrice, couponValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        int levels = couponValue / scale(itemsNumber, couponValue);
+        long memory = (levels + 1L) * Integer.BYTES + (long) itemsNumber * RollingSolver.words(levels) * Long.BYTES;
+        return new Cost(itemsNumber * (levels + 1L), memory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.APPROXIMATE;
+    }
+
+    /**
+     * Retrieves the value by which the prices are divided, so that a unit lost by each item adds up to
+     * less than {@code epsilon / 2} of the coupon value.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the scale, at least one.
+     */
+    private int scale(int itemsNumber, int couponValue) {
+        return (int) Math.max(1, (long) (epsilon * couponValue / (2.0 * Math.max(1, itemsNumber))));
+    }
+
+    /**
+     * Adds the items left out that still fit, the most expensive first.
+     *
+     * @param itemsPrice an array of items price.
+     * @param chosen     the items taken, updated with the added ones.
+     * @param room       the value left in the coupon.
+     * @return the total price of the added items.
+     */
+    private static long fill(int[] itemsPrice, boolean[] chosen, long room) {
+        Integer[] order = new Integer[itemsPrice.length];
+        for (int item = 0; item < order.length; item++) {
+            order[item] = item;
+        }
+
+        Arrays.sort(order, Comparator.comparingInt((Integer item) -> itemsPrice[item]).reversed());
+        long added = 0;
+
+        for (int item : order) {
+            if (!chosen[item] && itemsPrice[item] <= room - added) {
+                chosen[item] = true;
+                added += itemsPrice[item];
+            }
+        }
+
+        return added;
+    }
+}
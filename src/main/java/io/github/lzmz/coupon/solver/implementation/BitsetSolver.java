@@ -0,0 +1,148 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves the coupon as a subset-sum reachability problem. Since the price of an item is both its
+ * weight and its value, the sums that can be reached with the first {@code i} items are
+ * {@code R(i) = R(i - 1) | (R(i - 1) << price(i))}, which is computed 64 values at a time over
+ * {@code long} words.
+ * <p>The best value is the highest sum reached that does not exceed the coupon, and an item belongs
+ * to the solution when the current value cannot be reached without it, which gives the same items
+ * as {@link MatrixSolver}.</p>
+ */
+public class BitsetSolver implements CouponSolver {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        int itemsNumber = itemsId.length;
+        int words = RollingSolver.words(couponValue);
+        long lastWordMask = lastWordMask(couponValue);
+        long[][] reachable = new long[itemsNumber + 1][words];
+        reachable[0][0] = 1L;
+
+        for (int item = 0; item < itemsNumber; item++) {
+            shiftOr(reachable[item], itemsPrice[item], reachable[item + 1]);
+            reachable[item + 1][words - 1] &= lastWordMask;
+        }
+
+        int best = highestBit(reachable[itemsNumber]);
+        long peakMemory = estimate(itemsNumber, couponValue).getMemory();
+        return new Solution(getItemsForBestSolution(itemsId, itemsPrice, best, reachable), getStrategy(), peakMemory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        long words = RollingSolver.words(couponValue);
+        return new Cost(itemsNumber * words, (itemsNumber + 1) * words * Long.BYTES);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.BITSET;
+    }
+
+    /**
+     * Retrieves the elements that are part of the best solution found, sorted by the IDs.
+     *
+     * @param itemsId    an array of items ID.
+     * @param itemsPrice an array of items price.
+     * @param best       the best value found for the coupon.
+     * @param reachable  the sums reachable with the first {@code i} items, for each {@code i}.
+     * @return a list of the items that make up the best solution found.
+     */
+    public List<String> getItemsForBestSolution(String[] itemsId, int[] itemsPrice, int best, long[][] reachable) {
+        List<String> items = new ArrayList<>();
+
+        for (int itemCount = itemsPrice.length; itemCount > 0 && best > 0; itemCount--) {
+            if (!isSet(reachable[itemCount - 1], best)) {
+                items.add(itemsId[itemCount - 1]);
+                best -= itemsPrice[itemCount - 1];
+            }
+        }
+
+        items.sort(String::compareTo);
+        return items;
+    }
+
+    /**
+     * Stores in {@code target} the union of {@code source} and {@code source} shifted {@code shift}
+     * bits to the left. Bits shifted past the last word are dropped.
+     *
+     * @param source the bitset to shift.
+     * @param shift  the number of bits to shift.
+     * @param target the bitset where the result is stored, as long as {@code source}.
+     */
+    static void shiftOr(long[] source, int shift, long[] target) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+
+        for (int word = source.length - 1; word >= 0; word--) {
+            long shifted = 0;
+            int from = word - wordShift;
+
+            if (from >= 0) {
+                shifted = source[from] << bitShift;
+
+                if (bitShift != 0 && from > 0) {
+                    shifted |= source[from - 1] >>> (64 - bitShift);
+                }
+            }
+
+            target[word] = source[word] | shifted;
+        }
+    }
+
+    /**
+     * Retrieves the mask that keeps the bits up to {@code couponValue} in the last word of a bitset.
+     *
+     * @param couponValue the value of the coupon.
+     * @return the mask of the last word.
+     */
+    static long lastWordMask(int couponValue) {
+        int bits = (couponValue & 63) + 1;
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Retrieves the index of the highest bit set.
+     *
+     * @param bitset the bitset to search.
+     * @return the index of the highest bit set, or {@code -1} if there is none.
+     */
+    static int highestBit(long[] bitset) {
+        for (int word = bitset.length - 1; word >= 0; word--) {
+            if (bitset[word] != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bitset[word]);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether the given bit is set.
+     *
+     * @param bitset the bitset to check.
+     * @param bit    the index of the bit.
+     * @return {@code true} if the bit is set.
+     */
+    static boolean isSet(long[] bitset, int bit) {
+        return (bitset[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
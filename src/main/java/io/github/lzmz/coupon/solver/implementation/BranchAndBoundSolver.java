@@ -0,0 +1,237 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves the coupon searching the best total depth first, from the most expensive item, taking each
+ * item before skipping it. The items that do not fit in the room left are skipped at once, a branch is
+ * pruned when the items left cannot beat the best total found, and the search stops as soon as a total
+ * fills the coupon exactly. The search may visit as many nodes as the {@link BitsetSolver} table has
+ * words, after which the coupon is handed to {@link BitsetSolver}.
+ * <p>The items are then picked as {@link BitsetSolver} does, over the rows of only the first items
+ * needed to reach the best total, which gives the same items as {@link MatrixSolver}.</p>
+ * <p>Carts with many more subsets than coupon values have many totals that fill the coupon, so one is
+ * found after a few nodes, and a few more than their first {@code log2(couponValue)} items already
+ * reach it.</p>
+ */
+@Slf4j
+public class BranchAndBoundSolver implements CouponSolver {
+
+    /**
+     * The number of bits by which the number of items must exceed the bits of the coupon value for a
+     * total that fills the coupon to be expected, as there are then at least {@code 2^DENSITY} subsets
+     * per coupon value.
+     */
+    public static final int DENSITY = 4;
+
+    /**
+     * The fewest nodes the search may visit, so that small coupons are not handed over too soon.
+     */
+    private static final long MIN_NODES = 1 << 12;
+
+    private static final byte ENTER = 0;
+    private static final byte TAKEN = 1;
+    private static final byte SKIPPED = 2;
+
+    private final BitsetSolver fallback = new BitsetSolver();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        int itemsNumber = itemsId.length;
+        long nodes = Math.max(MIN_NODES, fallback.estimate(itemsNumber, couponValue).getOperations());
+        int best = (int) maxSum(itemsPrice, couponValue, nodes);
+
+        if (best < 0) {
+            log.debug("Search of {} items for coupon value {} ran out of nodes, falling back to {} strategy",
+                    itemsNumber, couponValue, fallback.getStrategy());
+            return fallback.solve(itemsId, itemsPrice, couponValue);
+        }
+
+        int words = RollingSolver.words(best);
+        long lastWordMask = BitsetSolver.lastWordMask(best);
+        List<long[]> reachable = new ArrayList<>();
+        reachable.add(new long[words]);
+        reachable.get(0)[0] = 1L;
+
+        while (!BitsetSolver.isSet(reachable.get(reachable.size() - 1), best)) {
+            long[] row = new long[words];
+            BitsetSolver.shiftOr(reachable.get(reachable.size() - 1), itemsPrice[reachable.size() - 1], row);
+            row[words - 1] &= lastWordMask;
+            reachable.add(row);
+        }
+
+        int itemCount = reachable.size() - 1;
+        log.debug("First {} of {} items reach the best total {} for coupon value {}", itemCount, itemsNumber, best, couponValue);
+        List<String> items = fallback.getItemsForBestSolution(Arrays.copyOf(itemsId, itemCount),
+                Arrays.copyOf(itemsPrice, itemCount), best, reachable.toArray(new long[0][]));
+        return new Solution(items, getStrategy(), memory(itemsNumber) + (long) (itemCount + 1) * words * Long.BYTES);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A cart dense enough to expect a total that fills the coupon is estimated at a few nodes per
+     * item, plus the rows of a few more than its first {@code log2(couponValue)} items. Any other one
+     * is expected to run out of nodes and be solved by {@link BitsetSolver} too. The memory is the one
+     * of {@link BitsetSolver}, which it may need.</p>
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        Cost table = fallback.estimate(itemsNumber, couponValue);
+        long memory = Math.max(memory(itemsNumber), table.getMemory());
+
+        if (isDense(itemsNumber, couponValue)) {
+            long rows = Integer.SIZE - Integer.numberOfLeadingZeros(couponValue) + 2 * DENSITY;
+            return new Cost((long) itemsNumber * Integer.SIZE + rows * RollingSolver.words(couponValue), memory);
+        }
+
+        return new Cost(2 * table.getOperations() + MIN_NODES, memory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.BRANCH_AND_BOUND;
+    }
+
+    /**
+     * Checks whether a cart has enough subsets for a total that fills the coupon to be expected.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return {@code true} if the items outnumber the bits of the coupon value by {@link #DENSITY}.
+     */
+    public static boolean isDense(int itemsNumber, int couponValue) {
+        return itemsNumber >= Integer.SIZE - Integer.numberOfLeadingZeros(couponValue) + DENSITY;
+    }
+
+    /**
+     * Retrieves the bytes taken by the search: the sorted prices, the totals below each of them and
+     * the path of the search.
+     *
+     * @param itemsNumber the number of items.
+     * @return the memory of the search.
+     */
+    private static long memory(int itemsNumber) {
+        return (long) itemsNumber * (Long.BYTES + 3 * Integer.BYTES + 1);
+    }
+
+    /**
+     * Searches the largest total that does not exceed the limit, from the most expensive item.
+     * Skipping an item skips the cheaper ones of the same price too, as taking any of them is the same
+     * as taking the first one.
+     *
+     * @param itemsPrice an array of items price.
+     * @param limit      the value that the total must not exceed.
+     * @param nodes      the nodes the search may visit.
+     * @return the largest total, -1 if the search ran out of nodes.
+     */
+    private static long maxSum(int[] itemsPrice, int limit, long nodes) {
+        int itemsNumber = itemsPrice.length;
+        int[] price = itemsPrice.clone();
+        Arrays.sort(price);
+        long[] below = new long[itemsNumber + 1];
+        int[] nextDistinct = new int[itemsNumber];
+
+        for (int rank = 0; rank < itemsNumber; rank++) {
+            below[rank + 1] = below[rank] + price[rank];
+            nextDistinct[rank] = rank > 0 && price[rank - 1] == price[rank] ? nextDistinct[rank - 1] : rank - 1;
+        }
+
+        if (below[itemsNumber] <= limit) {
+            return below[itemsNumber];
+        }
+
+        int[] rankAt = new int[itemsNumber + 1];
+        byte[] stateAt = new byte[itemsNumber + 1];
+        rankAt[0] = itemsNumber - 1;
+        int top = 0;
+        long sum = 0;
+        long best = 0;
+
+        while (top >= 0) {
+            if (stateAt[top] == ENTER) {
+                if (--nodes < 0) {
+                    return -1;
+                }
+
+                int rank = fitting(price, rankAt[top], limit - sum);
+                rankAt[top] = rank;
+
+                if (rank >= 0 && sum + price[rank] == limit) {
+                    return limit;
+                }
+
+                best = Math.max(best, sum);
+
+                if (rank < 0 || sum + below[rank + 1] <= best) {
+                    top--;
+                    continue;
+                }
+
+                stateAt[top] = TAKEN;
+                sum += price[rank];
+                top++;
+                rankAt[top] = rank - 1;
+                stateAt[top] = ENTER;
+                continue;
+            }
+
+            int rank = rankAt[top];
+
+            if (stateAt[top] == TAKEN) {
+                sum -= price[rank];
+                stateAt[top] = SKIPPED;
+                top++;
+                rankAt[top] = nextDistinct[rank];
+                stateAt[top] = ENTER;
+                continue;
+            }
+
+            top--;
+        }
+
+        return best;
+    }
+
+    /**
+     * Retrieves the most expensive of the first items that fits in the room left.
+     *
+     * @param price the prices sorted from the cheapest.
+     * @param rank  the last rank to consider.
+     * @param room  the value left in the coupon.
+     * @return the rank of the item, -1 if none fits.
+     */
+    private static int fitting(int[] price, int rank, long room) {
+        if (rank < 0 || price[rank] <= room) {
+            return rank;
+        }
+
+        int low = 0;
+        int high = rank - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (price[middle] <= room) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return high;
+    }
+}
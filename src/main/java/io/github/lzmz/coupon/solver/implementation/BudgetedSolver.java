@@ -0,0 +1,238 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
+import io.github.lzmz.coupon.exception.SolverBusyException;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits a coupon to the wrapped solver only when its estimated cost, known before any table is
+ * allocated, fits the limit of a single coupon. Otherwise the cheapest fallback that fits solves it,
+ * then the approximation, and when none does a {@link CouponTooLargeException} is thrown.
+ * <p>A coupon that accepts an approximate solution is solved by the approximation whenever it is
+ * cheaper than the exact solver admitted.</p>
+ * <p>The memory of all the coupons being solved is bounded by a budget, held in kilobytes by a fair
+ * {@link Semaphore}. A coupon waits up to the admission timeout for the memory it needs, then a
+ * {@link SolverBusyException} is thrown.</p>
+ */
+@Slf4j
+public class BudgetedSolver implements CouponSolver, AutoCloseable {
+
+    private final CouponSolver solver;
+    private final List<CouponSolver> fallbacks;
+    private final ApproximateSolver approximation;
+    private final Cost limit;
+    private final Semaphore budget;
+    private final Duration timeout;
+
+    /**
+     * @param solver        the solver of the coupons that fit the limit.
+     * @param fallbacks     the exact solvers tried, cheapest operations first, for the coupons that do not.
+     * @param approximation the solver of the coupons that no exact solver fits, or {@code null} to reject them.
+     * @param limit         the cost a single coupon is allowed to take.
+     * @param memoryBudget  the memory, in bytes, that all the coupons being solved may take together.
+     * @param timeout       the time a coupon waits for its memory before being rejected.
+     */
+    public BudgetedSolver(CouponSolver solver, List<CouponSolver> fallbacks, ApproximateSolver approximation, Cost limit,
+                          long memoryBudget, Duration timeout) {
+        long budgetKilobytes = Math.min(Integer.MAX_VALUE, memoryBudget / 1024);
+        this.solver = solver;
+        this.fallbacks = new ArrayList<>(fallbacks);
+        this.approximation = approximation;
+        this.limit = new Cost(limit.getOperations(), Math.min(limit.getMemory(), budgetKilobytes * 1024));
+        this.budget = new Semaphore((int) budgetKilobytes, true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws CouponTooLargeException if no solver can solve the coupon within the limit.
+     * @throws SolverBusyException     if the memory of the coupon was not available in time.
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        return solve(itemsId, itemsPrice, couponValue, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws CouponTooLargeException if no solver can solve the coupon within the limit.
+     * @throws SolverBusyException     if the memory of the coupon was not available in time.
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue, float epsilon) {
+        CouponSolver admitted = admit(itemsId.length, couponValue, epsilon);
+        long memory = admitted.estimate(itemsId.length, couponValue).getMemory();
+        reserve(memory);
+
+        try {
+            return admitted.solve(itemsId, itemsPrice, couponValue);
+        } finally {
+            release(memory);
+        }
+    }
+
+    /**
+     * Takes the given memory from the budget, waiting up to the admission timeout, for the tables kept
+     * beyond the coupon that computed them. It must be given back with {@link #release(long)}.
+     *
+     * @param memory the memory, in bytes.
+     * @throws SolverBusyException if the memory was not available in time.
+     */
+    public void reserve(long memory) {
+        try {
+            if (!budget.tryAcquire(permits(memory), timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new SolverBusyException(timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolverBusyException(timeout);
+        }
+    }
+
+    /**
+     * Gives back to the budget the given memory, taken by {@link #reserve(long)}.
+     *
+     * @param memory the memory, in bytes.
+     */
+    public void release(long memory) {
+        budget.release(permits(memory));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        return solver.estimate(itemsNumber, couponValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return solver.getStrategy();
+    }
+
+    /**
+     * Retrieves the solver of a coupon of the given size: the wrapped one when it fits the limit,
+     * otherwise the fallback that fits with the fewest operations, otherwise the approximation.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @param epsilon     the share of the best total the coupon accepts to lose, 0 if none.
+     * @return the {@link CouponSolver} admitted.
+     * @throws CouponTooLargeException if none of the solvers fits the limit.
+     */
+    public CouponSolver admit(int itemsNumber, int couponValue, float epsilon) {
+        CouponSolver exact = exact(itemsNumber, couponValue);
+
+        if (epsilon > 0 && approximation != null) {
+            CouponSolver approximate = approximation.withEpsilon(epsilon);
+            Cost cost = approximate.estimate(itemsNumber, couponValue);
+
+            if (fits(cost) && (exact == null || cost.getOperations() < exact.estimate(itemsNumber, couponValue).getOperations())) {
+                return approximate;
+            }
+        }
+
+        if (exact != null) {
+            return exact;
+        }
+
+        if (approximation != null && fits(approximation.estimate(itemsNumber, couponValue))) {
+            log.debug("Approximated {} items for coupon value {} with epsilon {}",
+                    itemsNumber, couponValue, approximation.getEpsilon());
+            return approximation;
+        }
+
+        throw new CouponTooLargeException(cheapest(solver.estimate(itemsNumber, couponValue), itemsNumber, couponValue), limit);
+    }
+
+    /**
+     * Retrieves the exact solver of a coupon of the given size: the wrapped one when it fits the limit,
+     * otherwise the fallback that fits with the fewest operations.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the exact {@link CouponSolver}, or {@code null} if none fits the limit.
+     */
+    private CouponSolver exact(int itemsNumber, int couponValue) {
+        if (fits(solver.estimate(itemsNumber, couponValue))) {
+            return solver;
+        }
+
+        CouponSolver fallback = fallbacks
+                .stream()
+                .filter(candidate -> fits(candidate.estimate(itemsNumber, couponValue)))
+                .min(Comparator.comparingLong(candidate -> candidate.estimate(itemsNumber, couponValue).getOperations()))
+                .orElse(null);
+
+        if (fallback != null) {
+            log.debug("Fell back from {} to {} strategy for {} items and coupon value {}",
+                    solver.getStrategy(), fallback.getStrategy(), itemsNumber, couponValue);
+        }
+
+        return fallback;
+    }
+
+    /**
+     * Shuts down the wrapped solver and the fallbacks that hold resources.
+     */
+    @Override
+    public void close() throws Exception {
+        List<CouponSolver> solvers = new ArrayList<>(fallbacks);
+        solvers.add(solver);
+
+        for (CouponSolver closeable : solvers) {
+            if (closeable instanceof AutoCloseable) {
+                ((AutoCloseable) closeable).close();
+            }
+        }
+    }
+
+    /**
+     * Checks whether an estimate is within the limit, an estimate that overflowed to a negative or empty
+     * memory never being.
+     */
+    private boolean fits(Cost cost) {
+        return cost.getMemory() > 0 && cost.getOperations() >= 0
+                && cost.getMemory() <= limit.getMemory() && cost.getOperations() <= limit.getOperations();
+    }
+
+    /**
+     * Retrieves the lowest memory estimate among all the solvers, to tell how far the coupon is from the limit.
+     */
+    private Cost cheapest(Cost cost, int itemsNumber, int couponValue) {
+        List<CouponSolver> solvers = new ArrayList<>(fallbacks);
+        if (approximation != null) {
+            solvers.add(approximation);
+        }
+
+        return solvers
+                .stream()
+                .map(candidate -> candidate.estimate(itemsNumber, couponValue))
+                .reduce(cost, (first, second) -> second.getMemory() < first.getMemory() ? second : first);
+    }
+
+    /**
+     * Retrieves the kilobytes of the budget taken by the given memory, at least one so that every
+     * coupon being solved counts.
+     */
+    private static int permits(long memory) {
+        return (int) Math.max(1, (memory + 1023) / 1024);
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rows of the {@link BitsetSolver} table for a list of items that only grows, so the items appended
+ * later cost their own rows only. Solving it gives the same items as {@link BitsetSolver} would for the
+ * whole list.
+ * <p>Not thread-safe, but a frontier no longer appended to may be read and copied with
+ * {@link #prefix(int)} concurrently.</p>
+ */
+public class Frontier {
+
+    private final int couponValue;
+    private final int words;
+    private final long lastWordMask;
+    private final List<String> itemsId;
+    private int[] itemsPrice;
+    private final List<long[]> reachable;
+
+    public Frontier(int couponValue) {
+        this.couponValue = couponValue;
+        this.words = RollingSolver.words(couponValue);
+        this.lastWordMask = BitsetSolver.lastWordMask(couponValue);
+        this.itemsId = new ArrayList<>();
+        this.itemsPrice = new int[16];
+        this.reachable = new ArrayList<>();
+        long[] none = new long[words];
+        none[0] = 1L;
+        reachable.add(none);
+    }
+
+    private Frontier(Frontier frontier, int itemsNumber) {
+        this.couponValue = frontier.couponValue;
+        this.words = frontier.words;
+        this.lastWordMask = frontier.lastWordMask;
+        this.itemsId = new ArrayList<>(frontier.itemsId.subList(0, itemsNumber));
+        this.itemsPrice = Arrays.copyOf(frontier.itemsPrice, Math.max(16, itemsNumber));
+        this.reachable = new ArrayList<>(frontier.reachable.subList(0, itemsNumber + 1));
+    }
+
+    public int getCouponValue() {
+        return couponValue;
+    }
+
+    /**
+     * Retrieves the number of items appended.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return itemsId.size();
+    }
+
+    /**
+     * Retrieves the bytes taken by the rows.
+     *
+     * @return the memory of the rows.
+     */
+    public long getMemory() {
+        return (long) reachable.size() * words * Long.BYTES;
+    }
+
+    /**
+     * Retrieves the bytes the rows would take once the given number of items is appended.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the memory of the rows.
+     */
+    public static long memory(int itemsNumber, int couponValue) {
+        return (itemsNumber + 1L) * RollingSolver.words(couponValue) * Long.BYTES;
+    }
+
+    /**
+     * Counts the leading items of the given list that were appended in the same order and with the same
+     * price.
+     *
+     * @param itemsId    an array of items ID.
+     * @param itemsPrice an array of items price.
+     * @return the number of leading items already appended.
+     */
+    public int commonPrefix(String[] itemsId, int[] itemsPrice) {
+        int common = 0;
+
+        while (common < Math.min(itemsId.length, size())
+                && itemsId[common].equals(this.itemsId.get(common))
+                && itemsPrice[common] == this.itemsPrice[common]) {
+            common++;
+        }
+
+        return common;
+    }
+
+    /**
+     * Retrieves a frontier of the first given items, that shares their rows with this one, as a row is
+     * never modified once computed. Appending to either of them leaves the other one as it is.
+     *
+     * @param itemsNumber the number of leading items to keep.
+     * @return the {@link Frontier} of the leading items.
+     */
+    public Frontier prefix(int itemsNumber) {
+        return new Frontier(this, itemsNumber);
+    }
+
+    /**
+     * Appends an item, computing its row.
+     *
+     * @param itemId    the ID of the item.
+     * @param itemPrice the price of the item.
+     */
+    public void append(String itemId, int itemPrice) {
+        int item = size();
+
+        if (item == itemsPrice.length) {
+            itemsPrice = Arrays.copyOf(itemsPrice, item * 2);
+        }
+
+        long[] next = new long[words];
+        BitsetSolver.shiftOr(reachable.get(item), itemPrice, next);
+        next[words - 1] &= lastWordMask;
+
+        itemsId.add(itemId);
+        itemsPrice[item] = itemPrice;
+        reachable.add(next);
+    }
+
+    /**
+     * Retrieves the best solution for the items appended so far.
+     *
+     * @return the {@link Solution} of the items appended.
+     */
+    public Solution solve() {
+        int itemsNumber = size();
+        int best = BitsetSolver.highestBit(reachable.get(itemsNumber));
+        List<String> items = new BitsetSolver().getItemsForBestSolution(itemsId.toArray(new String[0]),
+                Arrays.copyOf(itemsPrice, itemsNumber), best, reachable.toArray(new long[0][]));
+        return new Solution(items, Strategy.INCREMENTAL, getMemory());
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves the coupon filling the whole dynamic programming table, which takes
+ * {@code (n + 1) x (couponValue + 1)} integers.
+ */
+public class MatrixSolver implements CouponSolver {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        int itemsNumber = itemsId.length;
+        int[][] solutions = new int[itemsNumber + 1][couponValue + 1];
+
+        for (int itemCount = 1; itemCount <= itemsNumber; itemCount++) {
+            for (int value = 1; value <= couponValue; value++) {
+                if (itemsPrice[itemCount - 1] > value) {
+                    solutions[itemCount][value] = solutions[itemCount - 1][value];
+                } else {
+                    int notConsidered = solutions[itemCount - 1][value];
+                    int considered = itemsPrice[itemCount - 1] + solutions[itemCount - 1][value - itemsPrice[itemCount - 1]];
+                    solutions[itemCount][value] = Math.max(notConsidered, considered);
+                }
+            }
+        }
+
+        long peakMemory = estimate(itemsNumber, couponValue).getMemory();
+        return new Solution(getItemsForBestSolution(itemsId, itemsPrice, couponValue, solutions), getStrategy(), peakMemory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        long cells = ((long) itemsNumber + 1) * ((long) couponValue + 1);
+        return new Cost(cells, cells * Integer.BYTES);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.MATRIX;
+    }
+
+    /**
+     * Retrieves the elements that are part of the best solution found, sorted by the IDs.
+     *
+     * @param itemsId     an array of items ID.
+     * @param itemsPrice  an array of items price.
+     * @param couponValue the value of the coupon.
+     * @param solutions   the matrix containing the solutions.
+     * @return a list of the items that make up the best solution found.
+     */
+    public List<String> getItemsForBestSolution(String[] itemsId, int[] itemsPrice, int couponValue, int[][] solutions) {
+        int value = couponValue;
+        int best = solutions[itemsPrice.length][couponValue];
+        List<String> items = new ArrayList<>();
+
+        for (int itemCount = itemsPrice.length; itemCount > 0 && best > 0; itemCount--) {
+            if (best != solutions[itemCount - 1][value]) {
+                items.add(itemsId[itemCount - 1]);
+                best -= itemsPrice[itemCount - 1];
+                value -= itemsPrice[itemCount - 1];
+            }
+        }
+
+        items.sort(String::compareTo);
+        return items;
+    }
+}
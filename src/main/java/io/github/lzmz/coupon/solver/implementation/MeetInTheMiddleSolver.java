@@ -0,0 +1,153 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+/**
+ * Solves the coupon enumerating every subset sum of each half of the items. Both lists are built
+ * already sorted, merging the previous list with itself shifted by each price, and then a single pass
+ * over both of them finds the largest pair that fits in the coupon.
+ * <p>Its cost depends on {@code 2^(n/2)} instead of on the coupon value, so it suits few items and
+ * huge coupons. Carts with more than {@link #MAX_ITEMS} items are handed to {@link BitsetSolver}.</p>
+ */
+public class MeetInTheMiddleSolver extends AbstractSubsetSumSolver {
+
+    /**
+     * The maximum number of items to enumerate, which keeps each list under 2^20 sums.
+     */
+    public static final int MAX_ITEMS = 40;
+
+    private final CouponSolver fallback = new BitsetSolver();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        if (itemsId.length > MAX_ITEMS) {
+            return fallback.solve(itemsId, itemsPrice, couponValue);
+        }
+
+        return super.solve(itemsId, itemsPrice, couponValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The search of the best total enumerates the sums of all the items, and picking the items then
+     * enumerates again the sums of the first ones, once per item.</p>
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        if (itemsNumber > MAX_ITEMS) {
+            return Cost.UNAFFORDABLE;
+        }
+
+        long operations = 0;
+
+        for (int itemCount = 0; itemCount <= itemsNumber; itemCount++) {
+            operations += 4 * sums(itemCount);
+        }
+
+        return new Cost(operations, 2 * sums(itemsNumber) * Long.BYTES);
+    }
+
+    /**
+     * Retrieves the number of sums enumerated over both halves of the given number of items.
+     *
+     * @param itemCount the number of items.
+     * @return the size of both lists of sums.
+     */
+    private static long sums(int itemCount) {
+        return (1L << (itemCount / 2)) + (1L << (itemCount - itemCount / 2));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.MEET_IN_THE_MIDDLE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long maxSum(int[] itemsPrice, int itemCount, long limit) {
+        int half = itemCount / 2;
+        long[] left = subsetSums(itemsPrice, 0, half, limit);
+        long[] right = subsetSums(itemsPrice, half, itemCount, limit);
+
+        long best = 0;
+        int rightIndex = right.length - 1;
+
+        for (long sum : left) {
+            while (rightIndex >= 0 && sum + right[rightIndex] > limit) {
+                rightIndex--;
+            }
+
+            if (rightIndex < 0) {
+                break;
+            }
+
+            best = Math.max(best, sum + right[rightIndex]);
+            if (best == limit) {
+                break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Retrieves the distinct sums, up to the {@code limit}, of the prices between {@code from} and {@code to}.
+     *
+     * @param itemsPrice an array of items price.
+     * @param from       the index of the first item, inclusive.
+     * @param to         the index of the last item, exclusive.
+     * @param limit      the value that the sums must not exceed.
+     * @return the sums found, sorted in ascending order.
+     */
+    static long[] subsetSums(int[] itemsPrice, int from, int to, long limit) {
+        long[] sums = new long[1 << (to - from)];
+        long[] merged = new long[sums.length];
+        int size = 1;
+
+        for (int item = from; item < to; item++) {
+            int price = itemsPrice[item];
+            int count = 0;
+            int withoutIndex = 0;
+            int withIndex = 0;
+
+            while (withoutIndex < size || withIndex < size) {
+                long with = withIndex < size ? sums[withIndex] + price : Long.MAX_VALUE;
+                long next;
+
+                if (withoutIndex < size && sums[withoutIndex] <= with) {
+                    next = sums[withoutIndex++];
+                } else if (with <= limit) {
+                    next = with;
+                    withIndex++;
+                } else {
+                    withIndex = size;
+                    continue;
+                }
+
+                if (count == 0 || merged[count - 1] != next) {
+                    merged[count++] = next;
+                }
+            }
+
+            long[] swap = sums;
+            sums = merged;
+            merged = swap;
+            size = count;
+        }
+
+        long[] result = new long[size];
+        System.arraycopy(sums, 0, result, 0, size);
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves the coupon like {@link RollingSolver}, but splitting each item row in chunks that are
+ * computed in parallel on a dedicated {@link ForkJoinPool}. A row only reads the previous one, so
+ * two rows are kept and swapped after each item, and the chunks are aligned to 64 values so that no
+ * two tasks write the same word of the take/skip decisions.
+ * <p>Coupons whose value is lower than the threshold are not worth the coordination and are solved by
+ * {@link RollingSolver} on the calling thread.</p>
+ */
+public class ParallelSolver implements CouponSolver, AutoCloseable {
+
+    /**
+     * The number of values computed by a single task, a multiple of 64.
+     */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final RollingSolver sequential = new RollingSolver();
+
+    /**
+     * @param parallelism the number of threads of the pool.
+     * @param threshold   the coupon value from which rows are split.
+     */
+    public ParallelSolver(int parallelism, int threshold) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = threshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        if (couponValue < threshold) {
+            return sequential.solve(itemsId, itemsPrice, couponValue);
+        }
+
+        int itemsNumber = itemsId.length;
+        int[] previous = new int[couponValue + 1];
+        int[] current = new int[couponValue + 1];
+        long[][] taken = new long[itemsNumber][RollingSolver.words(couponValue)];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            pool.invoke(new RowTask(itemsPrice[item], previous, current, taken[item], 0, couponValue + 1));
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return new Solution(sequential.getItemsForBestSolution(itemsId, itemsPrice, couponValue, previous[couponValue], taken),
+                getStrategy(), estimate(itemsNumber, couponValue).getMemory());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        if (couponValue < threshold) {
+            return sequential.estimate(itemsNumber, couponValue);
+        }
+
+        long memory = 2L * ((long) couponValue + 1) * Integer.BYTES + (long) itemsNumber * RollingSolver.words(couponValue) * Long.BYTES;
+        return new Cost((long) itemsNumber * ((long) couponValue + 1) / pool.getParallelism(), memory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.PARALLEL;
+    }
+
+    /**
+     * Shuts down the pool of the solver.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Computes the values from {@code from} to {@code to} of an item row, splitting them in halves
+     * until they fit in a chunk.
+     */
+    private static class RowTask extends RecursiveAction {
+
+        private final int price;
+        private final int[] previous;
+        private final int[] current;
+        private final long[] taken;
+        private final int from;
+        private final int to;
+
+        RowTask(int price, int[] previous, int[] current, long[] taken, int from, int to) {
+            this.price = price;
+            this.previous = previous;
+            this.current = current;
+            this.taken = taken;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = from + ((to - from) / 2 & -64);
+                invokeAll(new RowTask(price, previous, current, taken, from, middle),
+                        new RowTask(price, previous, current, taken, middle, to));
+                return;
+            }
+
+            for (int value = from; value < to; value++) {
+                int notConsidered = previous[value];
+                current[value] = notConsidered;
+
+                if (price <= value) {
+                    int considered = price + previous[value - price];
+
+                    if (considered > notConsidered) {
+                        current[value] = considered;
+                        taken[value >>> 6] |= 1L << value;
+                    }
+                }
+            }
+        }
+    }
+}
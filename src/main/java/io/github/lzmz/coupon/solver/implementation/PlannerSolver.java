@@ -0,0 +1,65 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Solves each coupon with the candidate solver whose estimated number of operations is the lowest one
+ * for its number of items and coupon value. Ties go to the first candidate.
+ */
+@Slf4j
+public class PlannerSolver implements CouponSolver {
+
+    private final List<CouponSolver> candidates;
+
+    public PlannerSolver(CouponSolver... candidates) {
+        this.candidates = Arrays.asList(candidates);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        CouponSolver planned = plan(itemsId.length, couponValue);
+        log.debug("Planned {} strategy for {} items and coupon value {}", planned.getStrategy(), itemsId.length, couponValue);
+        return planned.solve(itemsId, itemsPrice, couponValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        return plan(itemsNumber, couponValue).estimate(itemsNumber, couponValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.AUTO;
+    }
+
+    /**
+     * Retrieves the cheapest candidate for a coupon of the given size.
+     *
+     * @param itemsNumber the number of items.
+     * @param couponValue the value of the coupon.
+     * @return the {@link CouponSolver} planned.
+     */
+    public CouponSolver plan(int itemsNumber, int couponValue) {
+        return candidates
+                .stream()
+                .min(Comparator.comparingLong(candidate -> candidate.estimate(itemsNumber, couponValue).getOperations()))
+                .orElseThrow(IllegalStateException::new);
+    }
+}
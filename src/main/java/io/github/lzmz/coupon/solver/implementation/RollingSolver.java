@@ -0,0 +1,100 @@
+package io.github.lzmz.coupon.solver.implementation;
+
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves the coupon keeping a single row of the dynamic programming table, which is updated in place
+ * for each item. The table itself is replaced by a bitset of take/skip decisions, one bit per cell,
+ * which is all that is needed to rebuild the solution.
+ * <p>An item is flagged as taken for a given value exactly when {@link MatrixSolver} would see a
+ * different best value than the one of the previous row, so both solvers return the same items.</p>
+ */
+public class RollingSolver implements CouponSolver {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+        int itemsNumber = itemsId.length;
+        int[] solutions = new int[couponValue + 1];
+        long[][] taken = new long[itemsNumber][words(couponValue)];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            int price = itemsPrice[item];
+            long[] takenRow = taken[item];
+
+            for (int value = couponValue; value >= price; value--) {
+                int considered = price + solutions[value - price];
+
+                if (considered > solutions[value]) {
+                    solutions[value] = considered;
+                    takenRow[value >>> 6] |= 1L << value;
+                }
+            }
+        }
+
+        long peakMemory = estimate(itemsNumber, couponValue).getMemory();
+        return new Solution(getItemsForBestSolution(itemsId, itemsPrice, couponValue, solutions[couponValue], taken),
+                getStrategy(), peakMemory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cost estimate(int itemsNumber, int couponValue) {
+        long memory = ((long) couponValue + 1) * Integer.BYTES + (long) itemsNumber * words(couponValue) * Long.BYTES;
+        return new Cost((long) itemsNumber * ((long) couponValue + 1), memory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Strategy getStrategy() {
+        return Strategy.ROLLING;
+    }
+
+    /**
+     * Retrieves the elements that are part of the best solution found, sorted by the IDs.
+     *
+     * @param itemsId     an array of items ID.
+     * @param itemsPrice  an array of items price.
+     * @param couponValue the value of the coupon.
+     * @param best        the best value found for the coupon.
+     * @param taken       the take/skip decisions, one bitset per item.
+     * @return a list of the items that make up the best solution found.
+     */
+    public List<String> getItemsForBestSolution(String[] itemsId, int[] itemsPrice, int couponValue, int best, long[][] taken) {
+        int value = couponValue;
+        List<String> items = new ArrayList<>();
+
+        for (int itemCount = itemsPrice.length; itemCount > 0 && best > 0; itemCount--) {
+            if ((taken[itemCount - 1][value >>> 6] & (1L << value)) != 0) {
+                items.add(itemsId[itemCount - 1]);
+                best -= itemsPrice[itemCount - 1];
+                value -= itemsPrice[itemCount - 1];
+            }
+        }
+
+        items.sort(String::compareTo);
+        return items;
+    }
+
+    /**
+     * Retrieves the number of 64-bit words needed to hold one bit for each value from 0 to {@code couponValue}.
+     *
+     * @param couponValue the value of the coupon.
+     * @return the number of words.
+     */
+    static int words(int couponValue) {
+        return (couponValue >>> 6) + 1;
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.implementation.BranchAndBoundSolver;
+
+public class BranchAndBoundCouponServiceTest extends CouponServiceTest {
+
+    @Override
+    protected CouponSolver couponSolver() {
+        return new BranchAndBoundSolver();
+    }
+}
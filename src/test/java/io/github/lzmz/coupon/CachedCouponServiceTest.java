@@ -0,0 +1,141 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.implementation.CachedCouponServiceImpl;
+import io.github.lzmz.coupon.service.implementation.CouponServiceImpl;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachedCouponServiceTest {
+
+    private CouponServiceImpl couponServiceImpl;
+    private MeterRegistry meterRegistry;
+    private CouponService couponService;
+
+    @BeforeEach
+    public void setUp() {
+        couponServiceImpl = spy(new CouponServiceImpl(new RollingSolver(), new SimpleMeterRegistry()));
+        meterRegistry = new SimpleMeterRegistry();
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getResultCache().setEnabled(true);
+        couponService = new CachedCouponServiceImpl(couponServiceImpl, couponProperties, meterRegistry);
+    }
+
+    @Test
+    public void calculate_sameItemsInAnotherOrder_shouldSolveOnce() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        Map<String, Float> reordered = new LinkedHashMap<>();
+        reordered.put("MLA3", 260F);
+        reordered.put("MLA1", 100F);
+        reordered.put("MLA2", 210F);
+
+        List<String> first = couponService.calculate(items, 500F);
+        List<String> second = couponService.calculate(reordered, 500F);
+
+        assertSame(first, second);
+        assertEquals(Arrays.asList("MLA2", "MLA3"), second);
+        verify(couponServiceImpl, times(1)).solve(anyMap(), anyFloat(), isNull(), isNull());
+        assertEquals(0.5, meterRegistry.get("coupon.results.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    public void calculate_priceChanged_shouldSolveAgain() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        assertEquals(Arrays.asList("MLA2", "MLA3"), couponService.calculate(items, 500F));
+        items.put("MLA3", 300F);
+        assertEquals(Arrays.asList("MLA1", "MLA3"), couponService.calculate(items, 500F));
+
+        verify(couponServiceImpl, times(2)).solve(anyMap(), anyFloat(), isNull(), isNull());
+    }
+
+    @Test
+    public void calculate_amountChanged_shouldSolveAgain() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+
+        couponService.calculate(items, 500F);
+        couponService.calculate(items, 200F);
+
+        verify(couponServiceImpl, times(2)).solve(anyMap(), anyFloat(), isNull(), isNull());
+    }
+
+    @Test
+    public void solve_epsilonChanged_shouldSolveAgain() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        couponService.solve(items, 500F);
+        couponService.solve(items, 500F, 0.05F);
+        couponService.solve(items, 500F, 0.05F);
+
+        verify(couponServiceImpl, times(1)).solve(anyMap(), anyFloat(), isNull(), isNull());
+        verify(couponServiceImpl, times(1)).solve(anyMap(), anyFloat(), eq(0.05F), isNull());
+    }
+
+    @Test
+    public void solve_cutShortByDeadline_shouldSolveAgain() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        Duration deadline = Duration.ofMillis(1);
+
+        doReturn(new Solution(Arrays.asList("MLA1", "MLA2"), Strategy.ANYTIME, 0, 0.62F))
+                .when(couponServiceImpl).solve(anyMap(), anyFloat(), isNull(), eq(deadline));
+
+        couponService.solve(items, 500F, null, deadline);
+        couponService.solve(items, 500F, null, deadline);
+        couponService.solve(items, 500F);
+        couponService.solve(items, 500F, null, deadline);
+
+        verify(couponServiceImpl, times(2)).solve(anyMap(), anyFloat(), isNull(), eq(deadline));
+        verify(couponServiceImpl, times(1)).solve(anyMap(), anyFloat(), isNull(), isNull());
+    }
+
+    @Test
+    public void calculate_insufficientAmount_shouldThrowEveryTime() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+
+        assertThrows(InsufficientAmountException.class, () -> couponService.calculate(items, 50F));
+        assertThrows(InsufficientAmountException.class, () -> couponService.calculate(items, 50F));
+
+        verify(couponServiceImpl, times(2)).solve(anyMap(), anyFloat(), isNull(), isNull());
+    }
+}
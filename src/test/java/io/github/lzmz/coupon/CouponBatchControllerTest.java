@@ -0,0 +1,289 @@
+package io.github.lzmz.coupon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.controller.CouponBatchController;
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import io.github.lzmz.coupon.exception.ApiErrorCode;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.exception.RestExceptionHandler;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.github.lzmz.coupon.service.implementation.CouponServiceImpl;
+import io.github.lzmz.coupon.service.implementation.IncrementalCouponServiceImpl;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Validation;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {ObjectMapper.class})
+public class CouponBatchControllerTest {
+
+    private ItemConsumerService itemConsumerService;
+    private ReactiveItemConsumerService reactiveItemConsumerService;
+    private Scheduler solverScheduler;
+    private MeterRegistry meterRegistry;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        itemConsumerService = mock(ItemConsumerService.class);
+        reactiveItemConsumerService = mock(ReactiveItemConsumerService.class);
+        solverScheduler = Schedulers.newParallel("solver-test", 2);
+        meterRegistry = new SimpleMeterRegistry();
+        CouponService couponService = new CouponServiceImpl(new RollingSolver(), new SimpleMeterRegistry());
+        RestExceptionHandler restExceptionHandler = new RestExceptionHandler(objectMapper);
+        CouponProperties couponProperties = new CouponProperties();
+        CouponBatchController couponBatchController = new CouponBatchController(itemConsumerService,
+                reactiveItemConsumerService, couponService,
+                new IncrementalCouponServiceImpl(couponService, new BudgetedSolver(new RollingSolver(), Collections.emptyList(),
+                        null, new Cost(Long.MAX_VALUE, Long.MAX_VALUE), 1L << 30, Duration.ofSeconds(1)),
+                        couponProperties, new SimpleMeterRegistry()),
+                solverScheduler, Validation.buildDefaultValidatorFactory().getValidator(), restExceptionHandler,
+                objectMapper, couponProperties, meterRegistry);
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(couponBatchController)
+                .setControllerAdvice(restExceptionHandler)
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        solverScheduler.dispose();
+    }
+
+    @Test
+    public void calculate_validAndFailingCoupons_shouldReturnEntriesInOrder() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        when(itemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3")))
+                .thenReturn(new ItemPrices(items, Collections.emptyList()));
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA2", "MLA3"), 500F),
+                                new CouponCalculateDto(Collections.emptyList(), 500F),
+                                new CouponCalculateDto(Arrays.asList("MLA2", "MLA3"), 50F),
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA2"), 500F))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$").value(hasSize(4)));
+        result.andExpect(jsonPath("$[0].solution.item_ids", contains("MLA2", "MLA3")));
+        result.andExpect(jsonPath("$[0].solution.total").value(470.0));
+        result.andExpect(jsonPath("$[0].error").doesNotExist());
+        result.andExpect(jsonPath("$[1].error.code").value(ApiErrorCode.METHOD_ARGUMENT_NOT_VALID));
+        result.andExpect(jsonPath("$[1].solution").doesNotExist());
+        result.andExpect(jsonPath("$[2].error.code").value(ApiErrorCode.INSUFFICIENT_AMOUNT));
+        result.andExpect(jsonPath("$[3].solution.item_ids", contains("MLA1", "MLA2")));
+        verify(itemConsumerService, times(1)).getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3"));
+        assertEquals(2, calculateCount("success"));
+        assertEquals(1, calculateCount("error"));
+    }
+
+    @Test
+    public void calculate_batchOverMaxSize_shouldReturnPayloadTooLarge() throws Exception {
+        int maxSize = new CouponProperties().getBatch().getMaxSize();
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH)
+                        .content(objectMapper.writeValueAsString(Collections.nCopies(maxSize + 1,
+                                new CouponCalculateDto(Collections.singletonList("MLA1"), 500F))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isPayloadTooLarge());
+        result.andExpect(jsonPath("$.code").value(ApiErrorCode.BATCH_TOO_LARGE));
+        verify(itemConsumerService, never()).getAvailableItemsPrice(anyList());
+    }
+
+    @Test
+    public void calculate_couponWithItemWithoutPrice_shouldFailOnlyThatCoupon() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+
+        when(itemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA9", "MLA2")))
+                .thenThrow(new NoItemPriceException("MLA9"));
+        when(itemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2")))
+                .thenReturn(new ItemPrices(items, Collections.emptyList()));
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA9"), 500F),
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA2"), 500F))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$[0].error.code").value(ApiErrorCode.NO_ITEM_PRICE));
+        result.andExpect(jsonPath("$[0].error.errors", contains("MLA9 has no price")));
+        result.andExpect(jsonPath("$[1].solution.item_ids", contains("MLA1", "MLA2")));
+    }
+
+    @Test
+    public void calculate_itemsApiUnavailable_shouldSolveWithCachedPrices() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+
+        when(itemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3")))
+                .thenReturn(new ItemPrices(items, Arrays.asList("MLA2", "MLA3")));
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA2"), 500F),
+                                new CouponCalculateDto(Collections.singletonList("MLA3"), 500F))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$[0].solution.item_ids", contains("MLA1")));
+        result.andExpect(jsonPath("$[0].solution.unpriced_item_ids", contains("MLA2")));
+        result.andExpect(jsonPath("$[1].error.code").value(ApiErrorCode.EXTERNAL_SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void calculate_itemsApiFailsForSomeItems_shouldFailOnlyTheCouponsHoldingThem() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        ExternalServiceTimeoutException timeout = new ExternalServiceTimeoutException(Duration.ofSeconds(5), null);
+
+        when(itemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3", "MLA4")))
+                .thenThrow(timeout);
+        when(reactiveItemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2")))
+                .thenReturn(Mono.just(new ItemPrices(items, Collections.emptyList())));
+        when(reactiveItemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA3")))
+                .thenReturn(Mono.error(timeout));
+        when(reactiveItemConsumerService.getAvailableItemsPrice(Collections.singletonList("MLA4")))
+                .thenReturn(Mono.error(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found",
+                        HttpHeaders.EMPTY, "{\"message\": \"Item with id MLA4 not found.\"}".getBytes(StandardCharsets.UTF_8),
+                        StandardCharsets.UTF_8)));
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA2"), 500F),
+                                new CouponCalculateDto(Arrays.asList("MLA1", "MLA3"), 500F),
+                                new CouponCalculateDto(Collections.singletonList("MLA4"), 500F))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$[0].solution.item_ids", contains("MLA1", "MLA2")));
+        result.andExpect(jsonPath("$[1].error.code").value(ApiErrorCode.EXTERNAL_SERVICE_TIMEOUT));
+        result.andExpect(jsonPath("$[2].error.code").value(ApiErrorCode.WEB_CLIENT_RESPONSE));
+        result.andExpect(jsonPath("$[2].error.errors", contains("Item with id MLA4 not found.")));
+    }
+
+    @Test
+    public void stream_validAndFailingCoupons_shouldWriteAnEntryPerLineInOrder() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        when(reactiveItemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3")))
+                .thenReturn(Mono.just(new ItemPrices(items, Collections.emptyList())));
+        when(reactiveItemConsumerService.getAvailableItemsPrice(Arrays.asList("MLA1", "MLA9")))
+                .thenReturn(Mono.error(new NoItemPriceException("MLA9")));
+
+        String body = objectMapper.writeValueAsString(new CouponCalculateDto(Arrays.asList("MLA1", "MLA2", "MLA3"), 500F)) + "\n"
+                + "{\"item_ids\": [\"MLA1\"\n"
+                + "\n"
+                + objectMapper.writeValueAsString(new CouponCalculateDto(Arrays.asList("MLA1", "MLA9"), 500F)) + "\n"
+                + objectMapper.writeValueAsString(new CouponCalculateDto(Arrays.asList("MLA1", "MLA2", "MLA3"), 50F));
+
+        MvcResult started = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.BATCH_STREAM)
+                        .content(body)
+                        .contentType(CouponBatchController.NDJSON_VALUE)
+                        .accept(CouponBatchController.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertEquals(4, lines.length);
+        assertEquals("[\"MLA2\",\"MLA3\"]", objectMapper.readTree(lines[0]).at("/solution/item_ids").toString());
+        assertEquals(ApiErrorCode.MESSAGE_NOT_READABLE, objectMapper.readTree(lines[1]).at("/error/code").asInt());
+        assertEquals(ApiErrorCode.NO_ITEM_PRICE, objectMapper.readTree(lines[2]).at("/error/code").asInt());
+        assertEquals(ApiErrorCode.INSUFFICIENT_AMOUNT, objectMapper.readTree(lines[3]).at("/error/code").asInt());
+        assertEquals(1, calculateCount("success"));
+        assertEquals(2, calculateCount("error"));
+    }
+
+    /**
+     * Counts the coupons timed with the given outcome, whatever their strategy and size.
+     *
+     * @param outcome the outcome of the coupons.
+     * @return the number of coupons.
+     */
+    private long calculateCount(String outcome) {
+        return meterRegistry.get("coupon.calculate").tag("outcome", outcome).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
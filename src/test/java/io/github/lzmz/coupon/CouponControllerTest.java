@@ -1,15 +1,29 @@
 package io.github.lzmz.coupon;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lzmz.coupon.config.CouponProperties;
 import io.github.lzmz.coupon.controller.CouponController;
 import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
 import io.github.lzmz.coupon.endpoint.CouponEndpoint;
 import io.github.lzmz.coupon.exception.ApiErrorCode;
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
 import io.github.lzmz.coupon.exception.InsufficientAmountException;
 import io.github.lzmz.coupon.exception.NoItemPriceException;
 import io.github.lzmz.coupon.exception.RestExceptionHandler;
+import io.github.lzmz.coupon.exception.SolverBusyException;
 import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
 import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.implementation.IncrementalCouponServiceImpl;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,15 +35,21 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -41,6 +61,8 @@ public class CouponControllerTest {
 
     private ItemConsumerService itemConsumerService;
     private CouponService couponService;
+    private IncrementalCouponService incrementalCouponService;
+    private MeterRegistry meterRegistry;
     private MockMvc mockMvc;
 
     @Autowired
@@ -50,7 +72,12 @@ public class CouponControllerTest {
     public void setUp() {
         itemConsumerService = mock(ItemConsumerService.class);
         couponService = mock(CouponService.class);
-        CouponController couponController = new CouponController(itemConsumerService, couponService);
+        incrementalCouponService = new IncrementalCouponServiceImpl(couponService, new BudgetedSolver(new RollingSolver(),
+                Collections.emptyList(), null, new Cost(Long.MAX_VALUE, Long.MAX_VALUE), 1L << 30, Duration.ofSeconds(1)),
+                new CouponProperties(), new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        CouponController couponController = new CouponController(itemConsumerService, couponService, incrementalCouponService,
+                meterRegistry);
         this.mockMvc = MockMvcBuilders
                 .standaloneSetup(couponController)
                 .setControllerAdvice(new RestExceptionHandler(objectMapper))
@@ -66,8 +93,8 @@ public class CouponControllerTest {
         Float amount = 500F;
         Float total = 310F;
 
-        when(itemConsumerService.getItemsPrice(ids)).thenReturn(items);
-        when(couponService.calculate(items, amount)).thenReturn(ids);
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, null, null)).thenReturn(new Solution(ids, Strategy.BITSET, 0));
         when(couponService.calculateTotalAmount(ids, items)).thenReturn(total);
 
         CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount);
@@ -82,13 +109,89 @@ public class CouponControllerTest {
         result.andExpect((jsonPath("$.item_ids").value(hasSize(ids.size()))));
         result.andExpect((jsonPath("$.item_ids", contains(ids.toArray()))));
         result.andExpect((jsonPath("$.total").value(total)));
+        result.andExpect((jsonPath("$.strategy").value(Strategy.BITSET.name())));
+        result.andExpect((jsonPath("$.exact").value(true)));
+        result.andExpect((jsonPath("$.bound").value(1.0)));
+        result.andExpect((jsonPath("$.unpriced_item_ids").doesNotExist()));
+        assertEquals(1, meterRegistry.get("coupon.calculate")
+                .tag("strategy", Strategy.BITSET.name())
+                .tag("outcome", "success")
+                .timer()
+                .count());
+    }
+
+    @Test
+    public void calculate_validBodyWithSession_shouldSolveIncrementally() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+        Float amount = 500F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.calculateTotalAmount(ids, items)).thenReturn(310F);
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount, "cart-1");
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.strategy").value(Strategy.INCREMENTAL.name())));
+        verify(couponService, never()).solve(items, amount, null, null);
+    }
+
+    @Test
+    public void calculate_validBodyItemsApiUnavailable_shouldReturnOkAndUnpricedIds() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+        List<String> solutionIds = Collections.singletonList("MLA1");
+        Float amount = 500F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.singletonList("MLA2")));
+        when(couponService.solve(items, amount, null, null)).thenReturn(new Solution(solutionIds, Strategy.DIRECT, 0));
+        when(couponService.calculateTotalAmount(solutionIds, items)).thenReturn(100F);
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.item_ids", contains("MLA1"))));
+        result.andExpect((jsonPath("$.unpriced_item_ids", contains("MLA2"))));
+    }
+
+    @Test
+    public void calculate_validBodyNoItemPriced_shouldReturnServiceUnavailable() throws Exception {
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(Collections.emptyMap(), ids));
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, 500F);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isServiceUnavailable());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.EXTERNAL_SERVICE_UNAVAILABLE)));
     }
 
     @Test
     public void calculate_validBodyNoItemPrice_shouldReturnBadRequest() throws Exception {
         List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
 
-        when(itemConsumerService.getItemsPrice(ids)).thenThrow(new NoItemPriceException(ids));
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenThrow(new NoItemPriceException(ids));
 
         CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, 500F);
 
@@ -111,8 +214,8 @@ public class CouponControllerTest {
         Float amount = 500F;
         Float total = 310F;
 
-        when(itemConsumerService.getItemsPrice(ids)).thenReturn(items);
-        when(couponService.calculate(items, amount)).thenThrow(InsufficientAmountException.class);
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, null, null)).thenThrow(InsufficientAmountException.class);
         when(couponService.calculateTotalAmount(ids, items)).thenReturn(total);
 
         CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount);
@@ -127,11 +230,146 @@ public class CouponControllerTest {
         result.andExpect((jsonPath("$.code").value(ApiErrorCode.INSUFFICIENT_AMOUNT)));
     }
 
+    @Test
+    public void calculate_validBodyWithEpsilon_shouldReturnApproximateSolution() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(items.keySet());
+        Float amount = 500F;
+        Float epsilon = 0.05F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, epsilon, null)).thenReturn(new Solution(ids, Strategy.APPROXIMATE, 0, 0.95F));
+        when(couponService.calculateTotalAmount(ids, items)).thenReturn(310F);
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount, null, epsilon);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.strategy").value(Strategy.APPROXIMATE.name())));
+        result.andExpect((jsonPath("$.exact").value(false)));
+        result.andExpect((jsonPath("$.bound").value(0.95F)));
+        verify(couponService, never()).solve(items, amount, null, null);
+    }
+
+    @Test
+    public void calculate_validBodyWithDeadline_shouldReturnBestSolutionFound() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(items.keySet());
+        Float amount = 500F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, null, Duration.ofMillis(50)))
+                .thenReturn(new Solution(ids, Strategy.ANYTIME, 0, 0.62F));
+        when(couponService.calculateTotalAmount(ids, items)).thenReturn(310F);
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount, null, null, 50);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.strategy").value(Strategy.ANYTIME.name())));
+        result.andExpect((jsonPath("$.exact").value(false)));
+        result.andExpect((jsonPath("$.bound").value(0.62F)));
+        verify(couponService, never()).solve(items, amount, null, null);
+    }
+
+    @Test
+    public void calculate_epsilonOutOfRange_shouldReturnBadRequest() throws Exception {
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(Collections.singletonList("MLA1"), 500F, null, 1F);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isBadRequest());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.METHOD_ARGUMENT_NOT_VALID)));
+    }
+
+    @Test
+    public void calculate_couponTooLarge_shouldReturnPayloadTooLarge() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(items.keySet());
+        Float amount = 10_000_000F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, null, null)).thenThrow(new CouponTooLargeException(new Cost(1L << 40, 1L << 40), new Cost(1L << 30, 1L << 28)));
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isPayloadTooLarge());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.COUPON_TOO_LARGE)));
+    }
+
+    @Test
+    public void calculate_solverBusy_shouldReturnTooManyRequests() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(items.keySet());
+        Float amount = 500F;
+
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenReturn(new ItemPrices(items, Collections.emptyList()));
+        when(couponService.solve(items, amount, null, null)).thenThrow(new SolverBusyException(Duration.ofSeconds(1)));
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, amount);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isTooManyRequests());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.SOLVER_BUSY)));
+    }
+
+    @Test
+    public void calculate_validBodyExternalServiceTimeout_shouldReturnGatewayTimeout() throws Exception {
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+
+        when(itemConsumerService.getAvailableItemsPrice(ids))
+                .thenThrow(new ExternalServiceTimeoutException(Duration.ofSeconds(5), new TimeoutException()));
+
+        CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, 500F);
+
+        ResultActions result = mockMvc.perform(
+                post(CouponEndpoint.BASE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE));
+
+        result.andExpect(status().isGatewayTimeout());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.EXTERNAL_SERVICE_TIMEOUT)));
+    }
+
     @Test
     public void calculate_validBodyInternalError_shouldReturnInternalServerError() throws Exception {
         List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
 
-        when(itemConsumerService.getItemsPrice(ids)).thenThrow(RuntimeException.class);
+        when(itemConsumerService.getAvailableItemsPrice(ids)).thenThrow(RuntimeException.class);
 
         CouponCalculateDto couponCalculateDto = new CouponCalculateDto(ids, 500F);
 
@@ -1,9 +1,18 @@
 package io.github.lzmz.coupon;
 
 
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
 import io.github.lzmz.coupon.exception.InsufficientAmountException;
 import io.github.lzmz.coupon.service.CouponService;
 import io.github.lzmz.coupon.service.implementation.CouponServiceImpl;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.MatrixSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -12,12 +21,42 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CouponServiceTest {
 
-    private final CouponService couponService = new CouponServiceImpl();
+    private static final float DECIMALS = 100F;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CouponService couponService = new CouponServiceImpl(couponSolver(), meterRegistry);
+
+    /**
+     * Creates the solver backing the service under test.
+     *
+     * @return the {@link CouponSolver} to test.
+     */
+    protected CouponSolver couponSolver() {
+        return new RollingSolver();
+    }
+
+    @Test
+    public void solve_validItems_shouldPublishTimeAndCells() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        Solution solution = couponService.solve(items, 500F);
+
+        String strategy = solution.getStrategy().name();
+        assertEquals(1, meterRegistry.get("coupon.solver").tag("strategy", strategy)
+                .tag("items", "1-10").tag("amount", "100-1000").timer().count());
+        assertEquals(solution.getStrategy() == Strategy.MEET_IN_THE_MIDDLE || solution.getStrategy() == Strategy.BRANCH_AND_BOUND ? 0 : 3 * 51,
+                meterRegistry.find("coupon.solver.cells").counters().stream().mapToDouble(Counter::count).sum());
+    }
 
     @Test
     public void calculateTotalAmount_nullIds_shouldReturnNull() {
@@ -85,6 +124,14 @@ public class CouponServiceTest {
         assertThrows(InsufficientAmountException.class, () -> couponService.calculate(items, 100F));
     }
 
+    @Test
+    public void calculate_amountOverIntegerCents_shouldThrowCouponTooLargeException() {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 20_000_000F);
+        items.put("MLA2", 24_000_000F);
+        assertThrows(CouponTooLargeException.class, () -> couponService.calculate(items, 25_000_000F));
+    }
+
     @Test
     public void calculate_validEntrySet1_shouldReturnSolution() throws InsufficientAmountException {
         Map<String, Float> items = new HashMap<>();
@@ -181,4 +228,66 @@ public class CouponServiceTest {
         assertEquals(solutionAmount, total);
         assertIterableEquals(solutionIds, calculated);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void calculate_allItemsFit_shouldReturnAllItems() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA3", 100F);
+        items.put("MLA1", 210F);
+        items.put("MLA2", 90F);
+        Float solutionAmount = 400F;
+        List<String> solutionIds = Arrays.asList("MLA1", "MLA2", "MLA3");
+
+        List<String> calculated = couponService.calculate(items, 500F);
+        Float total = couponService.calculateTotalAmount(calculated, items);
+
+        assertEquals(solutionAmount, total);
+        assertIterableEquals(solutionIds, calculated);
+    }
+
+    @Test
+    public void calculate_freeItem_shouldNotReturnIt() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 0F);
+        items.put("MLA2", 300F);
+        items.put("MLA3", 250F);
+        Float solutionAmount = 300F;
+        List<String> solutionIds = Collections.singletonList("MLA2");
+
+        List<String> calculated = couponService.calculate(items, 500F);
+        Float total = couponService.calculateTotalAmount(calculated, items);
+
+        assertEquals(solutionAmount, total);
+        assertIterableEquals(solutionIds, calculated);
+    }
+
+    @Test
+    public void calculate_randomItems_shouldReturnSameItemsAsMatrixOverPennies() throws InsufficientAmountException {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100; i++) {
+            float amount = 1 + random.nextInt(50);
+            int itemsNumber = 2 + random.nextInt(10);
+            Map<String, Float> items = new HashMap<>();
+
+            for (int item = 0; item < itemsNumber; item++) {
+                float price = random.nextBoolean() ? random.nextInt(40) : random.nextInt(4000) / DECIMALS;
+                items.put("MLA" + item, price);
+            }
+
+            Map<String, Integer> intItems = items.entrySet().stream()
+                    .filter(map -> map.getValue() <= amount)
+                    .collect(Collectors.toMap(Map.Entry::getKey, map -> (int) (map.getValue() * DECIMALS)));
+
+            if (intItems.size() < 2) {
+                continue;
+            }
+
+            String[] ids = intItems.keySet().toArray(new String[0]);
+            int[] prices = intItems.values().stream().mapToInt(Integer::intValue).toArray();
+            Solution expected = new MatrixSolver().solve(ids, prices, (int) (amount * DECIMALS));
+
+            assertIterableEquals(expected.getItemsId(), couponService.calculate(items, amount));
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.exception.InsufficientAmountException;
+import io.github.lzmz.coupon.exception.SolverBusyException;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.IncrementalCouponService;
+import io.github.lzmz.coupon.service.implementation.CouponServiceImpl;
+import io.github.lzmz.coupon.service.implementation.IncrementalCouponServiceImpl;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.Frontier;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IncrementalCouponServiceTest {
+
+    private CouponService couponService;
+    private MeterRegistry meterRegistry;
+    private IncrementalCouponService incrementalCouponService;
+
+    @BeforeEach
+    public void setUp() {
+        couponService = new CouponServiceImpl(new RollingSolver(), new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        incrementalCouponService = new IncrementalCouponServiceImpl(couponService, budget(1L << 30),
+                new CouponProperties(), meterRegistry);
+    }
+
+    @Test
+    public void solve_growingItems_shouldReuseComputedRows() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+
+        Solution first = incrementalCouponService.solve("cart", Arrays.asList("MLA1", "MLA2"), items, 500F);
+        items.put("MLA4", 80F);
+        Solution second = incrementalCouponService.solve("cart", Arrays.asList("MLA1", "MLA2", "MLA3", "MLA4"), items, 500F);
+
+        assertEquals(Arrays.asList("MLA1", "MLA2"), first.getItemsId());
+        assertEquals(Strategy.INCREMENTAL, second.getStrategy());
+        assertEquals(470F, couponService.calculateTotalAmount(second.getItemsId(), items));
+        assertEquals(2, rows("reused"));
+        assertEquals(4, rows("computed"));
+    }
+
+    @Test
+    public void solve_rowsOverCouponMemory_shouldSolveWithoutSession() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getSolver().setMaxCouponMemory(DataSize.ofKilobytes(1));
+        incrementalCouponService = new IncrementalCouponServiceImpl(couponService, budget(1L << 30), couponProperties, meterRegistry);
+
+        Solution solution = incrementalCouponService.solve("cart", Arrays.asList("MLA1", "MLA2", "MLA3"), items, 500F);
+
+        assertEquals(Arrays.asList("MLA2", "MLA3"), solution.getItemsId());
+        assertEquals(Strategy.ROLLING, solution.getStrategy());
+        assertEquals(0, rows("computed"));
+    }
+
+    @Test
+    public void solve_amountChanged_shouldStartOver() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3");
+
+        incrementalCouponService.solve("cart", ids, items, 500F);
+        Solution solution = incrementalCouponService.solve("cart", ids, items, 400F);
+
+        assertEquals(Arrays.asList("MLA1", "MLA3"), solution.getItemsId());
+        assertEquals(0, rows("reused"));
+        assertEquals(6, rows("computed"));
+    }
+
+    @Test
+    public void solve_priceChanged_shouldStartOver() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3");
+
+        incrementalCouponService.solve("cart", ids, items, 500F);
+        items.put("MLA1", 240F);
+        Solution solution = incrementalCouponService.solve("cart", ids, items, 500F);
+
+        assertEquals(Arrays.asList("MLA1", "MLA3"), solution.getItemsId());
+        assertEquals(0, rows("reused"));
+    }
+
+    @Test
+    public void solve_randomGrowingItems_shouldReachSameTotalAsCouponService() throws InsufficientAmountException {
+        Random random = new Random(7);
+
+        for (int session = 0; session < 50; session++) {
+            Map<String, Float> items = new HashMap<>();
+            List<String> ids = new ArrayList<>();
+            float amount = 1 + random.nextInt(500);
+
+            for (int item = 0; item < 10; item++) {
+                String id = "MLA" + item;
+                ids.add(id);
+                items.put(id, (1 + random.nextInt(30000)) / 100F);
+
+                if (items.values().stream().noneMatch(price -> price <= amount)) {
+                    continue;
+                }
+
+                Solution incremental = incrementalCouponService.solve("cart" + session, ids, items, amount);
+                Solution scratch = couponService.solve(items, amount);
+                assertEquals(couponService.calculateTotalAmount(scratch.getItemsId(), items),
+                        couponService.calculateTotalAmount(incremental.getItemsId(), items));
+            }
+        }
+    }
+
+    @Test
+    public void solve_withoutSession_shouldDelegateToCouponService() {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+
+        assertThrows(InsufficientAmountException.class,
+                () -> incrementalCouponService.solve(null, Arrays.asList("MLA1"), items, 50F));
+        assertEquals(0, rows("computed"));
+    }
+
+    @Test
+    public void solve_requestWithoutSession_shouldPassEpsilonAndDeadlineToCouponService() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+        CouponService mockCouponService = mock(CouponService.class);
+        Solution approximate = new Solution(ids, Strategy.APPROXIMATE, 0, 0.95F);
+        when(mockCouponService.solve(items, 500F, 0.05F, Duration.ofMillis(50))).thenReturn(approximate);
+        incrementalCouponService = new IncrementalCouponServiceImpl(mockCouponService, budget(1L << 30),
+                new CouponProperties(), meterRegistry);
+
+        assertEquals(approximate, incrementalCouponService.solve(null, ids, items, 500F, 0.05F, Duration.ofMillis(50)));
+        assertEquals(Strategy.INCREMENTAL, incrementalCouponService.solve("cart", ids, items, 500F, 0.05F,
+                Duration.ofMillis(50)).getStrategy());
+        verify(mockCouponService, times(1)).solve(items, 500F, 0.05F, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void solve_budgetHeldBySession_shouldThrowSolverBusy() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3");
+        incrementalCouponService = new IncrementalCouponServiceImpl(couponService, budget(Frontier.memory(3, 50_000)),
+                new CouponProperties(), meterRegistry);
+
+        incrementalCouponService.solve("cart", ids, items, 500F);
+
+        assertThrows(SolverBusyException.class, () -> incrementalCouponService.solve("other", ids, items, 500F));
+    }
+
+    @Test
+    public void solve_sessionEvicted_shouldGiveBackItsBudget() throws InsufficientAmountException {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3");
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getSolver().setSessionMaxMemory(DataSize.ofKilobytes(1));
+        incrementalCouponService = new IncrementalCouponServiceImpl(couponService, budget(Frontier.memory(3, 50_000)),
+                couponProperties, meterRegistry);
+
+        incrementalCouponService.solve("cart", ids, items, 500F);
+        Solution solution = incrementalCouponService.solve("other", ids, items, 500F);
+
+        assertEquals(Arrays.asList("MLA2", "MLA3"), solution.getItemsId());
+    }
+
+    @Test
+    public void solve_sameCartWithAndWithoutSession_shouldReturnSameItems() throws InsufficientAmountException {
+        Random random = new Random(11);
+
+        for (int cart = 0; cart < 50; cart++) {
+            Map<String, Float> items = new HashMap<>();
+            List<String> ids = new ArrayList<>();
+
+            for (int item = 0; item < 12; item++) {
+                String id = "MLA" + random.nextInt(1000);
+                ids.add(id);
+                items.put(id, (1 + random.nextInt(4)) * 50F);
+            }
+
+            Solution withSession = incrementalCouponService.solve("cart" + cart, ids, items, 275F, null, null);
+            Solution withoutSession = incrementalCouponService.solve(null, ids, items, 275F, null, null);
+
+            assertEquals(sorted(withoutSession.getItemsId()), sorted(withSession.getItemsId()));
+        }
+    }
+
+    @Test
+    public void solve_sessionExpired_shouldGiveBackItsBudgetWithoutAnotherRequest() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        items.put("MLA3", 260F);
+        long memory = Frontier.memory(3, 50_000);
+        BudgetedSolver budget = budget(memory);
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getSolver().setSessionTimeToIdle(Duration.ofMillis(100));
+
+        try (IncrementalCouponServiceImpl expiringService = new IncrementalCouponServiceImpl(couponService, budget,
+                couponProperties, meterRegistry)) {
+            expiringService.solve("cart", Arrays.asList("MLA1", "MLA2", "MLA3"), items, 500F);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            boolean released = false;
+
+            while (!released && System.nanoTime() < deadline) {
+                try {
+                    budget.reserve(memory);
+                    released = true;
+                } catch (SolverBusyException e) {
+                    Thread.sleep(100);
+                }
+            }
+
+            assertTrue(released);
+        }
+    }
+
+    /**
+     * Creates a solver whose memory budget is the given memory, rounded up to kilobytes.
+     *
+     * @param memory the memory budget, in bytes.
+     * @return the {@link BudgetedSolver}.
+     */
+    private static BudgetedSolver budget(long memory) {
+        return new BudgetedSolver(new RollingSolver(), Collections.emptyList(), null,
+                new Cost(Long.MAX_VALUE, Long.MAX_VALUE), (memory + 1023) / 1024 * 1024, Duration.ofMillis(50));
+    }
+
+    private double rows(String result) {
+        return meterRegistry.get("coupon.solver.incremental.rows").tag("result", result).counter().count();
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
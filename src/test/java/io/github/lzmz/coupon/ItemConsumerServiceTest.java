@@ -1,30 +1,72 @@
 package io.github.lzmz.coupon;
 
 
+import io.github.lzmz.coupon.cache.ItemNearCache;
+import io.github.lzmz.coupon.cache.ItemRefresher;
+import io.github.lzmz.coupon.client.ItemClient;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.config.ResilienceConfig;
+import io.github.lzmz.coupon.exception.ExternalServiceTimeoutException;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
 import io.github.lzmz.coupon.exception.NoItemPriceException;
 import io.github.lzmz.coupon.redis.Item;
 import io.github.lzmz.coupon.redis.ItemRepository;
 import io.github.lzmz.coupon.service.ItemConsumerService;
+import io.github.lzmz.coupon.service.ItemPrices;
 import io.github.lzmz.coupon.service.implementation.ItemConsumerServiceImpl;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,13 +75,28 @@ public class ItemConsumerServiceTest {
     private MockWebServer mockWebServer;
     private ItemConsumerService itemConsumerService;
     private ItemRepository itemRepository;
+    private MeterRegistry meterRegistry;
+    private ItemClient itemClient;
+    private CircuitBreaker circuitBreaker;
+    private ItemRefresher itemRefresher;
+
+    @Captor
+    private ArgumentCaptor<Collection<Item>> saved;
 
     @BeforeEach
     public void setUp() {
         mockWebServer = new MockWebServer();
         itemRepository = mock(ItemRepository.class);
         WebClient webClient = WebClient.create(mockWebServer.url("/").toString());
-        itemConsumerService = new ItemConsumerServiceImpl(webClient, itemRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        CouponProperties couponProperties = new CouponProperties();
+        circuitBreaker = CircuitBreaker.ofDefaults(ResilienceConfig.ITEMS);
+        itemClient = new ItemClient(webClient, couponProperties, meterRegistry, circuitBreaker,
+                Bulkhead.ofDefaults(ResilienceConfig.ITEMS));
+        ItemNearCache itemNearCache = new ItemNearCache(couponProperties, mock(StringRedisTemplate.class), meterRegistry);
+        itemRefresher = new ItemRefresher(itemClient, itemRepository, itemNearCache, couponProperties, meterRegistry);
+        itemConsumerService = new ItemConsumerServiceImpl(itemClient, itemRepository, itemNearCache, itemRefresher,
+                meterRegistry);
     }
 
     @Test
@@ -69,9 +126,11 @@ public class ItemConsumerServiceTest {
         List<String> ids = Arrays.asList("MLA1", "MLA2");
         List<Float> prices = Arrays.asList(100F, 210F);
 
+        List<Item> cached = new ArrayList<>();
+
         for (int i = 0; i < ids.size(); i++) {
             Item item = new Item(ids.get(i), prices.get(i));
-            when(itemRepository.findById(ids.get(i))).thenReturn(Optional.of(item));
+            cached.add(item);
 
             mockWebServer
                     .enqueue(new MockResponse()
@@ -81,12 +140,118 @@ public class ItemConsumerServiceTest {
                     );
         }
 
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(cached);
+
         Map<String, Float> items = itemConsumerService.getItemsPrice(ids);
         assertNotNull(items);
         assertEquals(ids.size(), items.size());
         assertTrue(items.keySet().containsAll(ids));
         assertTrue(items.values().containsAll(prices));
         assertEquals(mockWebServer.getRequestCount(), 0);
+        verify(itemRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void getItemsPrice_validIdsPartiallyCached_shouldWriteBackMissesAtOnce() throws NoItemPriceException {
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3");
+
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(Collections.singletonList(new Item("MLA1", 100F)));
+
+        for (String id : ids.subList(1, ids.size())) {
+            mockWebServer
+                    .enqueue(new MockResponse()
+                            .setResponseCode(HttpStatus.OK.value())
+                            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .setBody("{\"id\": \"" + id + "\", \"price\": 50}")
+                    );
+        }
+
+        Map<String, Float> items = itemConsumerService.getItemsPrice(ids);
+        assertEquals(ids.size(), items.size());
+        assertEquals(mockWebServer.getRequestCount(), 2);
+
+        verify(itemRepository, times(1)).saveAllInBulk(saved.capture());
+        assertEquals(2, saved.getValue().size());
+
+        DistributionSummary hitRatio = meterRegistry.get("coupon.items.cache.hit.ratio").summary();
+        assertEquals(1, hitRatio.count());
+        assertEquals(1D / 3, hitRatio.totalAmount(), 0.0001);
+        assertEquals(1, meterRegistry.get("coupon.items.price").tag("stage", "cache").timer().count());
+        assertEquals(1, meterRegistry.get("coupon.items.price").tag("stage", "http").timer().count());
+        assertEquals(1, meterRegistry.get("coupon.items.price").tag("stage", "cache-write").timer().count());
+    }
+
+    @Test
+    public void getItemsPrice_validIdsRequestedTwice_shouldReadRedisOnlyForTheNewIds() throws NoItemPriceException {
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(Collections.singletonList(new Item("MLA1", 100F)));
+        when(itemRepository.findAllInBulk(Collections.singleton("MLA3"))).thenReturn(Collections.singletonList(new Item("MLA3", 30F)));
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA2\", \"price\": 210}")
+                );
+
+        itemConsumerService.getItemsPrice(ids);
+        Map<String, Float> items = itemConsumerService.getItemsPrice(Arrays.asList("MLA1", "MLA2", "MLA3"));
+
+        assertEquals(3, items.size());
+        assertEquals(210F, items.get("MLA2"));
+        assertEquals(1, mockWebServer.getRequestCount());
+        verify(itemRepository, times(1)).findAllInBulk(Collections.singleton("MLA3"));
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", ItemNearCache.NAME).tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void getItemsPrice_validIdCachedAboutToExpire_shouldReturnCachedPriceAndRefreshIt() throws NoItemPriceException {
+        List<String> ids = Collections.singletonList("MLA1");
+
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(Collections.singletonList(new Item("MLA1", 100F, 10L)));
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA1\", \"price\": 120}")
+                );
+
+        Map<String, Float> items = itemConsumerService.getItemsPrice(ids);
+        assertEquals(100F, items.get("MLA1"));
+
+        verify(itemRepository, timeout(5000)).saveAllInBulk(argThat(saved -> !saved.isEmpty()
+                && saved.iterator().next().getPrice() == 120F));
+        assertEquals(120F, itemConsumerService.getItemsPrice(ids).get("MLA1"));
+    }
+
+    @Test
+    public void getItemsPrice_validIdCachedNotAboutToExpire_shouldNotRefreshIt() throws NoItemPriceException {
+        List<String> ids = Collections.singletonList("MLA1");
+
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(Collections.singletonList(new Item("MLA1", 100F, 3600L)));
+
+        assertEquals(100F, itemConsumerService.getItemsPrice(ids).get("MLA1"));
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void refreshExpiring_itemAlreadyRefreshing_shouldFetchItOnce() {
+        List<Item> cached = Collections.singletonList(new Item("MLA1", 100F, 10L));
+
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA1\", \"price\": 120}")
+                        .setBodyDelay(200, TimeUnit.MILLISECONDS)
+                );
+
+        Mono<Void> refresh = itemRefresher.refreshExpiring(cached);
+        itemRefresher.refreshExpiring(cached);
+        refresh.block();
+
+        assertEquals(1, mockWebServer.getRequestCount());
     }
 
     @Test
@@ -125,4 +290,369 @@ public class ItemConsumerServiceTest {
         assertThrows(NoItemPriceException.class, () -> itemConsumerService.getItemsPrice(ids));
         assertEquals(mockWebServer.getRequestCount(), ids.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getItemsPrice_validIdsNotCached_shouldFetchConcurrently() throws NoItemPriceException {
+        List<String> ids = Arrays.asList("MLA1", "MLA2", "MLA3", "MLA4");
+        long delay = 500;
+
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = Objects.requireNonNull(request.getPath()).substring(1);
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"" + id + "\", \"price\": " + id.substring(3) + "}")
+                        .setBodyDelay(delay, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        itemConsumerService.getItemsPrice(Collections.singletonList("MLA0"));
+
+        long start = System.nanoTime();
+        Map<String, Float> items = itemConsumerService.getItemsPrice(ids);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ids.size() + 1, mockWebServer.getRequestCount());
+        assertTrue(elapsed < 2 * delay, "Fetches took " + elapsed + " ms");
+
+        for (String id : ids) {
+            assertEquals(Float.valueOf(id.substring(3)), items.get(id));
+        }
+    }
+
+    @Test
+    public void getItemsPrice_slowExternalService_shouldThrowExternalServiceTimeoutException() {
+        List<String> ids = Collections.singletonList("MLA1");
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getItem().getClient().setResponseTimeout(Duration.ofMillis(200));
+
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA1\", \"price\": 100}")
+                        .setHeadersDelay(2, TimeUnit.SECONDS)
+                );
+
+        ItemConsumerService slowItemConsumerService = itemConsumerService(couponProperties);
+        long start = System.nanoTime();
+        assertThrows(ExternalServiceTimeoutException.class, () -> slowItemConsumerService.getItemsPrice(ids));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        verify(itemRepository, never()).saveAllInBulk(argThat(saved -> !saved.isEmpty()));
+    }
+
+    @Test
+    public void getAvailableItemsPrice_circuitOpen_shouldReturnCachedPricesAndUnpricedIds() throws NoItemPriceException {
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+
+        when(itemRepository.findAllInBulk(new LinkedHashSet<>(ids))).thenReturn(Collections.singletonList(new Item("MLA1", 100F)));
+        circuitBreaker.transitionToOpenState();
+
+        ItemPrices itemPrices = itemConsumerService.getAvailableItemsPrice(ids);
+
+        assertEquals(Collections.singletonMap("MLA1", 100F), itemPrices.getPrices());
+        assertEquals(Collections.singletonList("MLA2"), itemPrices.getUnpricedIds());
+        assertEquals(0, mockWebServer.getRequestCount());
+        assertEquals(1, meterRegistry.get("coupon.items.degraded").counter().count());
+        assertThrows(ExternalServiceUnavailableException.class, () -> itemConsumerService.getItemsPrice(ids));
+    }
+
+    @Test
+    public void getAvailableItemsPrice_bulkheadFull_shouldRejectWithoutWaiting() throws NoItemPriceException {
+        List<String> ids = Collections.singletonList("MLA1");
+        Bulkhead bulkhead = Bulkhead.of(ResilienceConfig.ITEMS, BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        bulkhead.acquirePermission();
+
+        ItemPrices itemPrices = itemConsumerService(new CouponProperties(), bulkhead).getAvailableItemsPrice(ids);
+
+        assertTrue(itemPrices.isDegraded());
+        assertEquals(ids, itemPrices.getUnpricedIds());
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void fetchItems_sameIdInFlight_shouldShareTheExternalServiceCall() {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = Objects.requireNonNull(request.getPath()).substring(1);
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"" + id + "\", \"price\": " + id.substring(3) + "}")
+                        .setBodyDelay(200, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        List<Item> first = itemClient.fetchItems(Collections.singletonList("MLA1")).collectList().block();
+        Tuple2<List<Item>, List<Item>> concurrent = Mono.zip(
+                itemClient.fetchItems(Collections.singletonList("MLA2")).collectList(),
+                itemClient.fetchItems(Arrays.asList("MLA2", "MLA3")).collectList())
+                .block();
+
+        assertEquals(1, first.size());
+        assertEquals(1, concurrent.getT1().size());
+        assertEquals(2, concurrent.getT2().size());
+        assertEquals(3, mockWebServer.getRequestCount());
+        assertEquals(1, meterRegistry.get("coupon.items.fetch.coalesced").counter().count());
+    }
+
+    @Test
+    public void fetchItems_overlappingIdsJoinedWhileRegistering_shouldReturnEveryRequestedItem() throws Exception {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(1);
+        MeterRegistry pausingRegistry = new SimpleMeterRegistry() {
+            @Override
+            protected Counter newCounter(Meter.Id id) {
+                Counter counter = super.newCounter(id);
+                return new Counter() {
+                    @Override
+                    public void increment(double amount) {
+                        counter.increment(amount);
+                        if (registering.getCount() > 0) {
+                            registering.countDown();
+                            awaitUninterruptibly(joined);
+                        }
+                    }
+
+                    @Override
+                    public double count() {
+                        return counter.count();
+                    }
+
+                    @Override
+                    public Id getId() {
+                        return counter.getId();
+                    }
+                };
+            }
+        };
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = Objects.requireNonNull(request.getPath()).substring(1);
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"" + id + "\", \"price\": " + id.substring(3) + "}")
+                        .setBodyDelay(id.equals("MLA2") ? 500 : 0, TimeUnit.MILLISECONDS);
+            }
+        });
+        ItemClient itemClient = new ItemClient(WebClient.create(mockWebServer.url("/").toString()), new CouponProperties(),
+                pausingRegistry, circuitBreaker, Bulkhead.ofDefaults(ResilienceConfig.ITEMS));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            itemClient.fetchItems(Collections.singletonList("MLA2")).subscribe();
+            Future<List<Item>> leading = executor.submit(() ->
+                    itemClient.fetchItems(Arrays.asList("MLA1", "MLA2", "MLA3")).collectList().block());
+            registering.await();
+
+            Mono<List<Item>> joining = itemClient.fetchItems(Collections.singletonList("MLA1")).collectList().cache();
+            joining.subscribe();
+            joined.countDown();
+
+            assertEquals(Collections.singletonList("MLA1"), ids(joining.block()));
+            assertEquals(new HashSet<>(Arrays.asList("MLA1", "MLA2", "MLA3")),
+                    new HashSet<>(ids(leading.get(5, TimeUnit.SECONDS))));
+            assertEquals(3, mockWebServer.getRequestCount());
+        } finally {
+            joined.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void fetchItems_joinedItemOfCallWithFailedItem_shouldReturnJoinedItem() throws Exception {
+        CountDownLatch received = new CountDownLatch(2);
+        CountDownLatch joined = new CountDownLatch(1);
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = Objects.requireNonNull(request.getPath()).substring(1);
+                received.countDown();
+                awaitUninterruptibly(joined);
+
+                if (id.equals("MLA2")) {
+                    return new MockResponse()
+                            .setResponseCode(HttpStatus.NOT_FOUND.value())
+                            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .setBody("{\"message\": \"Item with id MLA2 not found.\"}");
+                }
+
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"" + id + "\", \"price\": " + id.substring(3) + "}")
+                        .setBodyDelay(id.equals("MLA1") ? 200 : 0, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        try {
+            Mono<List<Item>> leading = itemClient.fetchItems(Arrays.asList("MLA1", "MLA2")).collectList().cache();
+            leading.subscribe(items -> {
+            }, error -> {
+            });
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+
+            Mono<List<Item>> joining = itemClient.fetchItems(Collections.singletonList("MLA1")).collectList().cache();
+            joining.subscribe(items -> {
+            }, error -> {
+            });
+            joined.countDown();
+
+            assertThrows(WebClientResponseException.NotFound.class, leading::block);
+            assertEquals(Collections.singletonList("MLA1"), ids(joining.block()));
+            assertEquals(2, mockWebServer.getRequestCount());
+            assertEquals(1, meterRegistry.get("coupon.items.fetch.coalesced").counter().count());
+        } finally {
+            joined.countDown();
+        }
+    }
+
+    @Test
+    public void getItemsPrice_validIdsMultiGet_shouldCallExternalServiceOncePerChunk() throws NoItemPriceException {
+        int multiGetSize = 20;
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; i <= 45; i++) {
+            ids.add("MLA" + i);
+        }
+
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String[] requested = Objects.requireNonNull(request.getRequestUrl()).queryParameter("ids").split(",");
+                StringJoiner body = new StringJoiner(",", "[", "]");
+                for (String id : requested) {
+                    body.add("{\"code\": 200, \"body\": {\"id\": \"" + id + "\", \"price\": " + id.substring(3) + "}}");
+                }
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody(body.toString());
+            }
+        });
+
+        Map<String, Float> items = multiGetItemConsumerService(multiGetSize).getItemsPrice(ids);
+
+        assertEquals((ids.size() + multiGetSize - 1) / multiGetSize, mockWebServer.getRequestCount());
+        assertEquals(ids.size(), items.size());
+        for (String id : ids) {
+            assertEquals(Float.valueOf(id.substring(3)), items.get(id));
+        }
+    }
+
+    @Test
+    public void getItemsPrice_validIdsMultiGetItemNotFound_shouldThrowNoItemPriceException() {
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("[{\"code\": 200, \"body\": {\"id\": \"MLA1\", \"price\": 100}},"
+                                + " {\"code\": 404, \"body\": {\"message\": \"Item with id MLA2 not found.\"}}]")
+                );
+
+        NoItemPriceException ex = assertThrows(NoItemPriceException.class,
+                () -> multiGetItemConsumerService(20).getItemsPrice(ids));
+        assertEquals(Collections.singletonList("MLA2"), ex.getIds());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void fetchItems_multiGetEntriesOutOfOrder_shouldMatchEntriesById() throws InterruptedException {
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getItem().setMultiGetSize(20);
+        ItemClient multiGetClient = new ItemClient(WebClient.create(mockWebServer.url("/items/").toString()),
+                couponProperties, meterRegistry, CircuitBreaker.ofDefaults(ResilienceConfig.ITEMS),
+                Bulkhead.ofDefaults(ResilienceConfig.ITEMS));
+
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("[{\"code\": 404, \"body\": {\"message\": \"Item with id MLA2 not found.\"}},"
+                                + " {\"code\": 200, \"body\": {\"id\": \"MLA3\", \"price\": 300}},"
+                                + " {\"code\": 200, \"body\": {\"id\": \"MLA1\", \"price\": 100}}]")
+                );
+
+        List<Item> items = multiGetClient.fetchItems(Arrays.asList("MLA1", "MLA2", "MLA3")).collectList().block();
+
+        assertNotNull(items);
+        Map<String, Float> prices = items.stream().collect(Collectors.toMap(Item::getId, Item::getPrice));
+        assertEquals(2, prices.size());
+        assertEquals(100F, prices.get("MLA1"));
+        assertEquals(300F, prices.get("MLA3"));
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertEquals("/items", Objects.requireNonNull(request.getRequestUrl()).encodedPath());
+        assertEquals("MLA1,MLA2,MLA3", request.getRequestUrl().queryParameter("ids"));
+    }
+
+    /**
+     * Retrieves the IDs of the given items.
+     *
+     * @param items the items.
+     * @return the IDs of the items, in the same order.
+     */
+    private static List<String> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Waits for the given latch, keeping the interrupt for later.
+     *
+     * @param latch the latch to wait for.
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates an item consumer service with the given settings.
+     *
+     * @param couponProperties the application settings.
+     * @return the {@link ItemConsumerService}.
+     */
+    private ItemConsumerService itemConsumerService(CouponProperties couponProperties) {
+        return itemConsumerService(couponProperties, Bulkhead.ofDefaults(ResilienceConfig.ITEMS));
+    }
+
+    /**
+     * Creates an item consumer service with the given settings and bulkhead.
+     *
+     * @param couponProperties the application settings.
+     * @param bulkhead         the bulkhead around the items API.
+     * @return the {@link ItemConsumerService}.
+     */
+    private ItemConsumerService itemConsumerService(CouponProperties couponProperties, Bulkhead bulkhead) {
+        WebClient webClient = WebClient.create(mockWebServer.url("/").toString());
+        ItemClient itemClient = new ItemClient(webClient, couponProperties, meterRegistry,
+                CircuitBreaker.ofDefaults(ResilienceConfig.ITEMS), bulkhead);
+        ItemNearCache itemNearCache = new ItemNearCache(couponProperties, mock(StringRedisTemplate.class), meterRegistry);
+        return new ItemConsumerServiceImpl(itemClient, itemRepository, itemNearCache,
+                new ItemRefresher(itemClient, itemRepository, itemNearCache, couponProperties, meterRegistry), meterRegistry);
+    }
+
+    /**
+     * Creates an item consumer service that requests the items in multi-get calls.
+     *
+     * @param multiGetSize the maximum number of items per call.
+     * @return the {@link ItemConsumerService}.
+     */
+    private ItemConsumerService multiGetItemConsumerService(int multiGetSize) {
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getItem().setMultiGetSize(multiGetSize);
+        return itemConsumerService(couponProperties);
+    }
+}
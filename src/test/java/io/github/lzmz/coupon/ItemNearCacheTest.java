@@ -0,0 +1,109 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.cache.ItemNearCache;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.redis.Item;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ItemNearCacheTest {
+
+    private static final String CHANNEL = "items";
+
+    private StringRedisTemplate stringRedisTemplate;
+    private MeterRegistry meterRegistry;
+    private ItemNearCache itemNearCache;
+
+    @BeforeEach
+    public void setUp() {
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getItem().getNearCache().setMaxEntries(2);
+        couponProperties.getItem().getNearCache().setInvalidationChannel(CHANNEL);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        itemNearCache = new ItemNearCache(couponProperties, stringRedisTemplate, meterRegistry);
+    }
+
+    @Test
+    public void putAllWritten_items_shouldPublishEachIdOnTheChannel() {
+        itemNearCache.putAllWritten(Arrays.asList(new Item("MLA1", 100F), new Item("MLA2", 210F)));
+
+        ArgumentCaptor<RedisCallback<Object>> callback = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(stringRedisTemplate, times(1)).executePipelined(callback.capture());
+
+        RedisConnection connection = mock(RedisConnection.class);
+        callback.getValue().doInRedis(connection);
+        verify(connection, times(2)).publish(eq(CHANNEL.getBytes(StandardCharsets.UTF_8)), any(byte[].class));
+        assertEquals(2, itemNearCache.getAllPresent(Arrays.asList("MLA1", "MLA2")).size());
+    }
+
+    @Test
+    public void putAll_itemsRead_shouldNotPublish() {
+        itemNearCache.putAll(Collections.singletonList(new Item("MLA1", 100F)));
+
+        verify(stringRedisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    public void onMessage_otherOrigin_shouldEvictTheItem() {
+        itemNearCache.putAll(Arrays.asList(new Item("MLA1", 100F), new Item("MLA2", 210F)));
+
+        itemNearCache.onMessage(message("other MLA1"), null);
+
+        assertEquals(Collections.singleton("MLA2"), itemNearCache.getAllPresent(Arrays.asList("MLA1", "MLA2")).keySet());
+    }
+
+    @Test
+    public void onMessage_ownOrigin_shouldKeepTheItem() {
+        itemNearCache.putAllWritten(Collections.singletonList(new Item("MLA1", 100F)));
+
+        ArgumentCaptor<RedisCallback<Object>> callback = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(stringRedisTemplate).executePipelined(callback.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        callback.getValue().doInRedis(connection);
+        ArgumentCaptor<byte[]> published = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).publish(any(byte[].class), published.capture());
+
+        itemNearCache.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), published.getValue()), null);
+
+        assertTrue(itemNearCache.getAllPresent(Collections.singletonList("MLA1")).containsKey("MLA1"));
+    }
+
+    @Test
+    public void putAll_moreItemsThanMaxEntries_shouldEvictAndCountIt() throws InterruptedException {
+        itemNearCache.putAll(Arrays.asList(new Item("MLA1", 1F), new Item("MLA2", 2F), new Item("MLA3", 3F)));
+
+        // Evictions run asynchronously.
+        double evictions = 0;
+        for (int i = 0; i < 100 && evictions == 0; i++) {
+            Thread.sleep(10);
+            evictions = meterRegistry.get("cache.evictions").tag("cache", ItemNearCache.NAME).functionCounter().count();
+        }
+
+        assertTrue(evictions > 0);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
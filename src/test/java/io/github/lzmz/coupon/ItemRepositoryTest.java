@@ -0,0 +1,39 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.redis.Item;
+import io.github.lzmz.coupon.redis.ItemKeyspaceConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.TimeToLiveAccessor;
+import org.springframework.data.redis.core.convert.MappingConfiguration;
+import org.springframework.data.redis.core.index.IndexConfiguration;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemRepositoryTest {
+
+    private TimeToLiveAccessor timeToLiveAccessor;
+
+    @BeforeEach
+    public void setUp() {
+        CouponProperties couponProperties = new CouponProperties();
+        couponProperties.getItem().setTimeToLive(Duration.ofMinutes(30));
+        RedisMappingContext mappingContext = new RedisMappingContext(
+                new MappingConfiguration(new IndexConfiguration(), new ItemKeyspaceConfiguration(couponProperties)));
+        timeToLiveAccessor = mappingContext.getRequiredPersistentEntity(Item.class).getTimeToLiveAccessor();
+    }
+
+    @Test
+    public void timeToLive_itemWithoutExpiry_shouldExpireAfterConfiguredTime() {
+        assertEquals(1800L, timeToLiveAccessor.getTimeToLive(new Item("MLA1", 100F)));
+    }
+
+    @Test
+    public void timeToLive_itemWithExpiry_shouldKeepItsOwn() {
+        assertEquals(60L, timeToLiveAccessor.getTimeToLive(new Item("MLA1", 100F, 60L)));
+    }
+}
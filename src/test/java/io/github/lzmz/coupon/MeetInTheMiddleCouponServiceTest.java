@@ -0,0 +1,12 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.implementation.MeetInTheMiddleSolver;
+
+public class MeetInTheMiddleCouponServiceTest extends CouponServiceTest {
+
+    @Override
+    protected CouponSolver couponSolver() {
+        return new MeetInTheMiddleSolver();
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.lzmz.coupon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.controller.ReactiveCouponController;
+import io.github.lzmz.coupon.dto.request.CouponCalculateDto;
+import io.github.lzmz.coupon.endpoint.CouponEndpoint;
+import io.github.lzmz.coupon.exception.ApiErrorCode;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.exception.RestExceptionHandler;
+import io.github.lzmz.coupon.service.CouponService;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.github.lzmz.coupon.service.implementation.IncrementalCouponServiceImpl;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {ObjectMapper.class})
+public class ReactiveCouponControllerTest {
+
+    private ReactiveItemConsumerService reactiveItemConsumerService;
+    private CouponService couponService;
+    private Scheduler solverScheduler;
+    private MeterRegistry meterRegistry;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        reactiveItemConsumerService = mock(ReactiveItemConsumerService.class);
+        couponService = mock(CouponService.class);
+        solverScheduler = Schedulers.newParallel("solver-test", 1);
+        meterRegistry = new SimpleMeterRegistry();
+        ReactiveCouponController reactiveCouponController = new ReactiveCouponController(reactiveItemConsumerService,
+                couponService, new IncrementalCouponServiceImpl(couponService, new BudgetedSolver(new RollingSolver(),
+                Collections.emptyList(), null, new Cost(Long.MAX_VALUE, Long.MAX_VALUE), 1L << 30, Duration.ofSeconds(1)),
+                new CouponProperties(), new SimpleMeterRegistry()), solverScheduler, meterRegistry);
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(reactiveCouponController)
+                .setControllerAdvice(new RestExceptionHandler(objectMapper))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        solverScheduler.dispose();
+    }
+
+    @Test
+    public void calculate_validBody_shouldReturnOkAndSolution() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        items.put("MLA2", 210F);
+        List<String> ids = new ArrayList<>(items.keySet());
+        Float amount = 500F;
+        Float total = 310F;
+
+        when(reactiveItemConsumerService.getAvailableItemsPrice(ids))
+                .thenReturn(Mono.just(new ItemPrices(items, Collections.emptyList())));
+        when(couponService.solve(items, amount, null, null)).thenReturn(new Solution(ids, Strategy.BITSET, 0));
+        when(couponService.calculateTotalAmount(ids, items)).thenReturn(total);
+
+        ResultActions result = perform(new CouponCalculateDto(ids, amount));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.item_ids", contains(ids.toArray()))));
+        result.andExpect((jsonPath("$.total").value(total)));
+        result.andExpect((jsonPath("$.strategy").value(Strategy.BITSET.name())));
+        assertEquals(1, meterRegistry.get("coupon.calculate")
+                .tag("strategy", Strategy.BITSET.name())
+                .tag("outcome", "success")
+                .timer()
+                .count());
+    }
+
+    @Test
+    public void calculate_validBodyNoItemPrice_shouldReturnBadRequest() throws Exception {
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+
+        when(reactiveItemConsumerService.getAvailableItemsPrice(ids)).thenReturn(Mono.error(new NoItemPriceException(ids)));
+
+        ResultActions result = perform(new CouponCalculateDto(ids, 500F));
+
+        result.andExpect(status().isBadRequest());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.NO_ITEM_PRICE)));
+    }
+
+    @Test
+    public void calculate_validBodyItemsApiUnavailable_shouldReturnOkAndUnpricedItems() throws Exception {
+        Map<String, Float> items = new HashMap<>();
+        items.put("MLA1", 100F);
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+        List<String> solutionIds = Collections.singletonList("MLA1");
+        Float amount = 500F;
+
+        when(reactiveItemConsumerService.getAvailableItemsPrice(ids))
+                .thenReturn(Mono.just(new ItemPrices(items, Collections.singletonList("MLA2"))));
+        when(couponService.solve(items, amount, null, null)).thenReturn(new Solution(solutionIds, Strategy.BITSET, 0));
+        when(couponService.calculateTotalAmount(solutionIds, items)).thenReturn(100F);
+
+        ResultActions result = perform(new CouponCalculateDto(ids, amount));
+
+        result.andExpect(status().isOk());
+        result.andExpect((jsonPath("$.item_ids", contains("MLA1"))));
+        result.andExpect((jsonPath("$.unpriced_item_ids", contains("MLA2"))));
+        assertEquals(1, meterRegistry.get("coupon.calculate").tag("outcome", "degraded").timer().count());
+    }
+
+    @Test
+    public void calculate_validBodyNoItemPriced_shouldReturnServiceUnavailable() throws Exception {
+        List<String> ids = new ArrayList<>(Arrays.asList("MLA1", "MLA2"));
+
+        when(reactiveItemConsumerService.getAvailableItemsPrice(ids))
+                .thenReturn(Mono.just(new ItemPrices(Collections.emptyMap(), ids)));
+
+        ResultActions result = perform(new CouponCalculateDto(ids, 500F));
+
+        result.andExpect(status().isServiceUnavailable());
+        result.andExpect((jsonPath("$.code").value(ApiErrorCode.EXTERNAL_SERVICE_UNAVAILABLE)));
+        assertEquals(1, meterRegistry.get("coupon.calculate").tag("strategy", "NONE").tag("outcome", "error").timer().count());
+    }
+
+    /**
+     * Posts the given body to the reactive endpoint and waits for the asynchronous result.
+     *
+     * @param couponCalculateDto the coupon calculation request body.
+     * @return the {@link ResultActions} of the dispatched result.
+     */
+    private ResultActions perform(CouponCalculateDto couponCalculateDto) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(
+                post(CouponEndpoint.BASE + CouponEndpoint.REACTIVE)
+                        .content(objectMapper.writeValueAsString(couponCalculateDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+}
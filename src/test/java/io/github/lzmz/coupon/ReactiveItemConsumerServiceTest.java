@@ -0,0 +1,130 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.client.ItemClient;
+import io.github.lzmz.coupon.config.CouponProperties;
+import io.github.lzmz.coupon.config.ResilienceConfig;
+import io.github.lzmz.coupon.exception.ExternalServiceUnavailableException;
+import io.github.lzmz.coupon.exception.NoItemPriceException;
+import io.github.lzmz.coupon.redis.Item;
+import io.github.lzmz.coupon.service.ItemPrices;
+import io.github.lzmz.coupon.service.ReactiveItemConsumerService;
+import io.github.lzmz.coupon.service.implementation.ReactiveItemConsumerServiceImpl;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveItemConsumerServiceTest {
+
+    private MockWebServer mockWebServer;
+    private ReactiveHashOperations<String, String, String> hashOperations;
+    private ReactiveItemConsumerService reactiveItemConsumerService;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        mockWebServer = new MockWebServer();
+        hashOperations = mock(ReactiveHashOperations.class);
+        ReactiveStringRedisTemplate reactiveStringRedisTemplate = mock(ReactiveStringRedisTemplate.class);
+        when(reactiveStringRedisTemplate.<String, String>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.get(anyString(), anyString())).thenReturn(Mono.empty());
+        when(hashOperations.putAll(anyString(), anyMap())).thenReturn(Mono.just(true));
+        when(reactiveStringRedisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        WebClient webClient = WebClient.create(mockWebServer.url("/").toString());
+        CouponProperties couponProperties = new CouponProperties();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.ofDefaults(ResilienceConfig.ITEMS);
+        reactiveItemConsumerService = new ReactiveItemConsumerServiceImpl(new ItemClient(webClient, couponProperties, meterRegistry,
+                circuitBreaker, Bulkhead.ofDefaults(ResilienceConfig.ITEMS)),
+                reactiveStringRedisTemplate, couponProperties, meterRegistry);
+    }
+
+    @Test
+    public void getItemsPrice_validIdsPartiallyCached_shouldFetchMissesAndCacheThem() {
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+
+        when(hashOperations.get(Item.key("MLA1"), Item.PRICE_FIELD)).thenReturn(Mono.just("100.0"));
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA2\", \"price\": 210}")
+                );
+
+        Map<String, Float> items = reactiveItemConsumerService.getItemsPrice(ids).block();
+
+        assertEquals(2, items.size());
+        assertEquals(100F, items.get("MLA1"));
+        assertEquals(210F, items.get("MLA2"));
+        assertEquals(1, mockWebServer.getRequestCount());
+        verify(hashOperations).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    public void getItemsPrice_validIdNoPrice_shouldFailWithNoItemPriceException() {
+        List<String> ids = Collections.singletonList("MLA1");
+
+        mockWebServer
+                .enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"id\": \"MLA1\"}")
+                );
+
+        Mono<Map<String, Float>> items = reactiveItemConsumerService.getItemsPrice(ids);
+        RuntimeException ex = assertThrows(RuntimeException.class, items::block);
+        assertEquals(NoItemPriceException.class, ex.getCause().getClass());
+    }
+
+    @Test
+    public void getAvailableItemsPrice_externalServiceUnavailable_shouldReturnCachedPricesAndUnpricedIds() {
+        List<String> ids = Arrays.asList("MLA1", "MLA2");
+
+        when(hashOperations.get(Item.key("MLA1"), Item.PRICE_FIELD)).thenReturn(Mono.just("100.0"));
+        circuitBreaker.transitionToOpenState();
+
+        ItemPrices itemPrices = reactiveItemConsumerService.getAvailableItemsPrice(ids).block();
+
+        assertTrue(itemPrices.isDegraded());
+        assertEquals(Collections.singletonMap("MLA1", 100F), itemPrices.getPrices());
+        assertEquals(Collections.singletonList("MLA2"), itemPrices.getUnpricedIds());
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getItemsPrice_externalServiceUnavailable_shouldFailWithExternalServiceUnavailableException() {
+        circuitBreaker.transitionToOpenState();
+
+        Mono<Map<String, Float>> items = reactiveItemConsumerService.getItemsPrice(Collections.singletonList("MLA1"));
+        assertThrows(ExternalServiceUnavailableException.class, items::block);
+    }
+}
@@ -0,0 +1,513 @@
+package io.github.lzmz.coupon;
+
+import io.github.lzmz.coupon.exception.CouponTooLargeException;
+import io.github.lzmz.coupon.exception.SolverBusyException;
+import io.github.lzmz.coupon.solver.Cost;
+import io.github.lzmz.coupon.solver.CouponSolver;
+import io.github.lzmz.coupon.solver.Solution;
+import io.github.lzmz.coupon.solver.Strategy;
+import io.github.lzmz.coupon.solver.implementation.AnytimeSolver;
+import io.github.lzmz.coupon.solver.implementation.ApproximateSolver;
+import io.github.lzmz.coupon.solver.implementation.BitsetSolver;
+import io.github.lzmz.coupon.solver.implementation.BranchAndBoundSolver;
+import io.github.lzmz.coupon.solver.implementation.BudgetedSolver;
+import io.github.lzmz.coupon.solver.implementation.Frontier;
+import io.github.lzmz.coupon.solver.implementation.MatrixSolver;
+import io.github.lzmz.coupon.solver.implementation.MeetInTheMiddleSolver;
+import io.github.lzmz.coupon.solver.implementation.ParallelSolver;
+import io.github.lzmz.coupon.solver.implementation.PlannerSolver;
+import io.github.lzmz.coupon.solver.implementation.RollingSolver;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SolverTest {
+
+    private static final int RANDOM_CASES = 200;
+
+    private final MatrixSolver matrixSolver = new MatrixSolver();
+
+    @Test
+    public void rollingSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new RollingSolver());
+    }
+
+    @Test
+    public void bitsetSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new BitsetSolver());
+    }
+
+    @Test
+    public void parallelSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        try (ParallelSolver parallelSolver = new ParallelSolver(4, 0)) {
+            assertSameItemsAsMatrix(parallelSolver);
+        }
+    }
+
+    @Test
+    public void parallelSolve_couponOverChunk_shouldReturnSameItemsAsMatrix() {
+        String[] ids = {"MLA1", "MLA2", "MLA3", "MLA4", "MLA5", "MLA6"};
+        int[] prices = {10065, 21000, 26099, 8000, 9013, 33333};
+
+        try (ParallelSolver parallelSolver = new ParallelSolver(4, 0)) {
+            Solution expected = matrixSolver.solve(ids, prices, 70000);
+            Solution actual = parallelSolver.solve(ids, prices, 70000);
+
+            assertEquals(Strategy.PARALLEL, actual.getStrategy());
+            assertIterableEquals(expected.getItemsId(), actual.getItemsId());
+        }
+    }
+
+    @Test
+    public void parallelSolve_couponUnderThreshold_shouldSolveSequentially() {
+        try (ParallelSolver parallelSolver = new ParallelSolver(4, 1_000_000)) {
+            Solution solution = parallelSolver.solve(new String[]{"MLA1", "MLA2"}, new int[]{100, 200}, 250);
+            assertEquals(Strategy.ROLLING, solution.getStrategy());
+        }
+    }
+
+    @Test
+    public void meetInTheMiddleSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new MeetInTheMiddleSolver());
+    }
+
+    @Test
+    public void branchAndBoundSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new BranchAndBoundSolver());
+    }
+
+    @Test
+    public void branchAndBoundSolve_denseRandomItems_shouldReturnSameItemsAsBitset() {
+        Random random = new Random(42);
+        BitsetSolver bitsetSolver = new BitsetSolver();
+        BranchAndBoundSolver branchAndBoundSolver = new BranchAndBoundSolver();
+
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int couponValue = 1 + random.nextInt(1_000_000);
+            int itemsNumber = 40 + random.nextInt(200);
+            String[] ids = randomIds(itemsNumber);
+            int[] prices = randomPrices(random, itemsNumber, couponValue);
+
+            Solution solution = branchAndBoundSolver.solve(ids, prices, couponValue);
+
+            assertEquals(Strategy.BRANCH_AND_BOUND, solution.getStrategy());
+            assertIterableEquals(bitsetSolver.solve(ids, prices, couponValue).getItemsId(), solution.getItemsId());
+        }
+    }
+
+    @Test
+    public void branchAndBoundSolve_noTotalFillsCoupon_shouldReturnSameItemsAsBitset() {
+        int itemsNumber = 60;
+        int couponValue = 100_001;
+        String[] ids = randomIds(itemsNumber);
+        int[] prices = new int[itemsNumber];
+        Random random = new Random(42);
+        for (int item = 0; item < itemsNumber; item++) {
+            prices[item] = 2 * (1 + random.nextInt(couponValue / 2));
+        }
+
+        Solution solution = new BranchAndBoundSolver().solve(ids, prices, couponValue);
+
+        assertIterableEquals(new BitsetSolver().solve(ids, prices, couponValue).getItemsId(), solution.getItemsId());
+    }
+
+    @Test
+    public void plannerSolve_randomItems_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver(),
+                new BranchAndBoundSolver()));
+    }
+
+    @Test
+    public void plannerPlan_fewItemsHugeCoupon_shouldPlanMeetInTheMiddle() {
+        PlannerSolver plannerSolver = new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver());
+        assertEquals(Strategy.MEET_IN_THE_MIDDLE, plannerSolver.plan(25, 10_000_000).getStrategy());
+    }
+
+    @Test
+    public void plannerPlan_manyItems_shouldPlanBitset() {
+        PlannerSolver plannerSolver = new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver());
+        assertEquals(Strategy.BITSET, plannerSolver.plan(200, 500_000).getStrategy());
+    }
+
+    @Test
+    public void plannerPlan_manyItemsDenseCart_shouldPlanBranchAndBound() {
+        PlannerSolver plannerSolver = new PlannerSolver(new BitsetSolver(), new MeetInTheMiddleSolver(),
+                new BranchAndBoundSolver());
+        assertEquals(Strategy.BRANCH_AND_BOUND, plannerSolver.plan(200, 500_000).getStrategy());
+        assertEquals(Strategy.MEET_IN_THE_MIDDLE, plannerSolver.plan(25, 10_000_000).getStrategy());
+    }
+
+    @Test
+    public void meetInTheMiddleEstimate_shouldCountPickingTheItems() {
+        long search = 4 * ((1L << 10) + (1L << 10));
+
+        assertTrue(new MeetInTheMiddleSolver().estimate(20, 10_000_000).getOperations() > 2 * search);
+    }
+
+    @Test
+    public void meetInTheMiddleSolve_fewItemsHugeCoupon_shouldReturnBestSolution() {
+        String[] ids = new String[25];
+        int[] prices = new int[25];
+
+        for (int item = 0; item < ids.length; item++) {
+            ids[item] = "MLA" + item;
+            prices[item] = 1_000_003 + item * 7919;
+        }
+
+        Solution solution = new MeetInTheMiddleSolver().solve(ids, prices, 10_000_000);
+        long total = solution.getItemsId().stream().mapToLong(id -> prices[Integer.parseInt(id.substring(3))]).sum();
+
+        assertEquals(Strategy.MEET_IN_THE_MIDDLE, solution.getStrategy());
+        assertEquals(9, solution.getItemsId().size());
+        assertTrue(total <= 10_000_000);
+    }
+
+    @Test
+    public void frontierSolve_randomItemsAppendedOneByOne_shouldReturnSameItemsAsMatrix() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int itemsNumber = 1 + random.nextInt(12);
+            int couponValue = 1 + random.nextInt(3000);
+            String[] ids = new String[itemsNumber];
+            int[] prices = new int[itemsNumber];
+            Frontier frontier = new Frontier(couponValue);
+
+            for (int item = 0; item < itemsNumber; item++) {
+                ids[item] = "MLA" + item;
+                prices[item] = random.nextInt(couponValue + 1);
+                frontier.append(ids[item], prices[item]);
+
+                String[] appendedIds = Arrays.copyOf(ids, item + 1);
+                int[] appendedPrices = Arrays.copyOf(prices, item + 1);
+                Solution expected = matrixSolver.solve(appendedIds, appendedPrices, couponValue);
+                Solution actual = frontier.solve();
+                assertIterableEquals(expected.getItemsId(), actual.getItemsId());
+                assertEquals(item + 1, frontier.commonPrefix(appendedIds, appendedPrices));
+            }
+        }
+    }
+
+    @Test
+    public void budgetedSolve_randomItemsWithinLimit_shouldReturnSameItemsAsMatrix() {
+        assertSameItemsAsMatrix(new BudgetedSolver(new RollingSolver(), Collections.singletonList(new BitsetSolver()), null,
+                new Cost(Long.MAX_VALUE, 1 << 20), 1 << 20, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void budgetedSolve_tableOverLimit_shouldFallBackToBitset() {
+        Random random = new Random(42);
+        String[] ids = new String[40];
+        int[] prices = new int[40];
+
+        for (int item = 0; item < ids.length; item++) {
+            ids[item] = "MLA" + item;
+            prices[item] = 1 + random.nextInt(5000);
+        }
+
+        BudgetedSolver budgetedSolver = new BudgetedSolver(matrixSolver,
+                Arrays.asList(new BitsetSolver(), new MeetInTheMiddleSolver()), null,
+                new Cost(Long.MAX_VALUE, 512 * 1024), 1 << 20, Duration.ofSeconds(1));
+        Solution solution = budgetedSolver.solve(ids, prices, 50_000);
+
+        assertEquals(Strategy.BITSET, solution.getStrategy());
+        assertIterableEquals(matrixSolver.solve(ids, prices, 50_000).getItemsId(), solution.getItemsId());
+    }
+
+    @Test
+    public void budgetedSolve_noSolverWithinLimit_shouldThrowCouponTooLarge() {
+        String[] ids = new String[40];
+        int[] prices = new int[40];
+        Arrays.fill(ids, "MLA1");
+        Arrays.fill(prices, 3);
+
+        BudgetedSolver budgetedSolver = new BudgetedSolver(matrixSolver,
+                Arrays.asList(new BitsetSolver(), new MeetInTheMiddleSolver()), null,
+                new Cost(Long.MAX_VALUE, 1024), 1 << 20, Duration.ofSeconds(1));
+
+        assertThrows(CouponTooLargeException.class, () -> budgetedSolver.solve(ids, prices, 50_000));
+    }
+
+    @Test
+    public void budgetedSolve_budgetHeldByAnotherCoupon_shouldThrowSolverBusy() throws Exception {
+        CountDownLatch solving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RollingSolver blockingSolver = new RollingSolver() {
+            @Override
+            public Solution solve(String[] itemsId, int[] itemsPrice, int couponValue) {
+                solving.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.solve(itemsId, itemsPrice, couponValue);
+            }
+        };
+        String[] ids = {"MLA1", "MLA2"};
+        int[] prices = {30_000, 40_000};
+        long memory = (blockingSolver.estimate(ids.length, 50_000).getMemory() + 1023) / 1024 * 1024;
+        BudgetedSolver budgetedSolver = new BudgetedSolver(blockingSolver, Collections.emptyList(), null,
+                new Cost(Long.MAX_VALUE, memory), memory, Duration.ofMillis(50));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Solution> first = executor.submit(() -> budgetedSolver.solve(ids, prices, 50_000));
+            solving.await();
+
+            assertThrows(SolverBusyException.class, () -> budgetedSolver.solve(ids, prices, 50_000));
+
+            release.countDown();
+            assertIterableEquals(Collections.singletonList("MLA2"), first.get().getItemsId());
+            assertIterableEquals(Collections.singletonList("MLA2"), budgetedSolver.solve(ids, prices, 50_000).getItemsId());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void budgetedSolve_noExactSolverWithinLimit_shouldApproximate() {
+        String[] ids = randomIds(40);
+        int[] prices = randomPrices(new Random(42), 40, 10_000_000);
+
+        BudgetedSolver budgetedSolver = new BudgetedSolver(new BitsetSolver(),
+                Collections.singletonList(new MeetInTheMiddleSolver()), new ApproximateSolver(0.01F),
+                new Cost(Long.MAX_VALUE, 128 * 1024), 1 << 20, Duration.ofSeconds(1));
+        Solution solution = budgetedSolver.solve(ids, prices, 10_000_000);
+
+        assertEquals(Strategy.APPROXIMATE, solution.getStrategy());
+        assertTrue(solution.getBound() >= 0.99F);
+    }
+
+    @Test
+    public void budgetedAdmit_epsilonAccepted_shouldApproximateOnlyWhenCheaper() {
+        BudgetedSolver budgetedSolver = new BudgetedSolver(new RollingSolver(), Collections.emptyList(),
+                new ApproximateSolver(0.01F), new Cost(Long.MAX_VALUE, Long.MAX_VALUE), 1L << 30, Duration.ofSeconds(1));
+
+        assertEquals(Strategy.ROLLING, budgetedSolver.admit(40, 10_000_000, 0).getStrategy());
+        assertEquals(Strategy.APPROXIMATE, budgetedSolver.admit(40, 10_000_000, 0.05F).getStrategy());
+        assertEquals(Strategy.ROLLING, budgetedSolver.admit(40, 1000, 0.05F).getStrategy());
+    }
+
+    @Test
+    public void estimate_couponValueAtIntegerLimit_shouldBePositive() throws Exception {
+        try (ParallelSolver parallelSolver = new ParallelSolver(4, 0)) {
+            for (CouponSolver solver : Arrays.asList(matrixSolver, new RollingSolver(), parallelSolver)) {
+                Cost cost = solver.estimate(50, Integer.MAX_VALUE);
+
+                assertTrue(cost.getOperations() > Integer.MAX_VALUE, solver.getStrategy().name());
+                assertTrue(cost.getMemory() > Integer.MAX_VALUE, solver.getStrategy().name());
+            }
+        }
+    }
+
+    @Test
+    public void budgetedAdmit_overflowedEstimate_shouldThrowCouponTooLarge() {
+        RollingSolver overflowedSolver = new RollingSolver() {
+            @Override
+            public Cost estimate(int itemsNumber, int couponValue) {
+                return new Cost(-1, -1);
+            }
+        };
+        BudgetedSolver budgetedSolver = new BudgetedSolver(overflowedSolver, Collections.emptyList(), null,
+                new Cost(Long.MAX_VALUE, Long.MAX_VALUE), 1L << 30, Duration.ofSeconds(1));
+
+        assertThrows(CouponTooLargeException.class, () -> budgetedSolver.admit(50, Integer.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void approximateSolve_randomItems_shouldReachBoundOfBestTotal() {
+        Random random = new Random(42);
+        BitsetSolver bitsetSolver = new BitsetSolver();
+
+        for (float epsilon : new float[]{0.2F, 0.05F, 0.01F}) {
+            ApproximateSolver approximateSolver = new ApproximateSolver(epsilon);
+
+            for (int i = 0; i < RANDOM_CASES; i++) {
+                int itemsNumber = 1 + random.nextInt(30);
+                int couponValue = 1 + random.nextInt(200_000);
+                String[] ids = randomIds(itemsNumber);
+                int[] prices = randomPrices(random, itemsNumber, couponValue);
+
+                long best = total(ids, prices, bitsetSolver.solve(ids, prices, couponValue));
+                Solution solution = approximateSolver.solve(ids, prices, couponValue);
+                long total = total(ids, prices, solution);
+
+                assertTrue(total <= couponValue);
+                assertTrue(total >= (1 - epsilon) * best, total + " is below " + (1 - epsilon) + " of " + best);
+                assertTrue(total >= solution.getBound() * best * (1 - 1e-6));
+                if (solution.isExact()) {
+                    assertEquals(best, total);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void approximateSolve_pricesNearIntegerLimit_shouldNotExceedCoupon() {
+        String[] ids = {"MLA1", "MLA2"};
+        int[] prices = {1_073_741_830, 1_073_741_830};
+
+        Solution solution = new ApproximateSolver(0.01F).solve(ids, prices, Integer.MAX_VALUE);
+
+        assertEquals(Collections.singletonList("MLA1"), solution.getItemsId());
+
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int couponValue = Integer.MAX_VALUE - random.nextInt(1000);
+            String[] randomIds = randomIds(50);
+            int[] randomPrices = randomPrices(random, 50, couponValue);
+
+            assertTrue(total(randomIds, randomPrices, new ApproximateSolver(0.01F).solve(randomIds, randomPrices, couponValue)) <= couponValue);
+        }
+    }
+
+    @Test
+    public void approximateSolve_smallCoupon_shouldBeExact() {
+        String[] ids = {"MLA1", "MLA2", "MLA3", "MLA4", "MLA5"};
+        int[] prices = {100, 210, 260, 80, 90};
+
+        Solution solution = new ApproximateSolver(0.01F).solve(ids, prices, 500);
+
+        assertTrue(solution.isExact());
+        assertEquals(total(ids, prices, new BitsetSolver().solve(ids, prices, 500)), total(ids, prices, solution));
+    }
+
+    @Test
+    public void anytimeSolve_randomItemsWithinDeadline_shouldProveBestTotal() {
+        Random random = new Random(42);
+        BitsetSolver bitsetSolver = new BitsetSolver();
+        AnytimeSolver anytimeSolver = new AnytimeSolver(null, Duration.ofSeconds(10));
+
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int itemsNumber = 1 + random.nextInt(20);
+            int couponValue = 1 + random.nextInt(100_000);
+            String[] ids = randomIds(itemsNumber);
+            int[] prices = randomPrices(random, itemsNumber, couponValue);
+
+            Solution solution = anytimeSolver.solve(ids, prices, couponValue);
+
+            assertEquals(Strategy.ANYTIME, solution.getStrategy());
+            assertTrue(solution.isExact());
+            assertEquals(total(ids, prices, bitsetSolver.solve(ids, prices, couponValue)), total(ids, prices, solution));
+        }
+    }
+
+    @Test
+    public void anytimeSolve_deadlineExpired_shouldReturnBestFoundWithBound() {
+        int itemsNumber = 200;
+        int couponValue = 1_000_000_001;
+        Random random = new Random(42);
+        String[] ids = randomIds(itemsNumber);
+        int[] prices = new int[itemsNumber];
+        for (int item = 0; item < itemsNumber; item++) {
+            prices[item] = 2 * (couponValue / 20 + random.nextInt(couponValue / 8));
+        }
+
+        long start = System.nanoTime();
+        Solution solution = new AnytimeSolver(new BitsetSolver(), Duration.ofMillis(10)).solve(ids, prices, couponValue);
+        long elapsed = System.nanoTime() - start;
+        long total = total(ids, prices, solution);
+
+        assertEquals(Strategy.ANYTIME, solution.getStrategy());
+        assertFalse(solution.isExact());
+        assertTrue(elapsed < Duration.ofSeconds(2).toNanos(), "took " + elapsed + " ns");
+        assertTrue(total <= couponValue);
+        assertEquals((float) total / couponValue, solution.getBound(), 1e-6);
+    }
+
+    @Test
+    public void anytimeSolve_couponSolvableWithinDeadline_shouldUseExactSolver() {
+        String[] ids = {"MLA1", "MLA2", "MLA3", "MLA4", "MLA5"};
+        int[] prices = {100, 210, 260, 80, 90};
+
+        Solution solution = new AnytimeSolver(new BitsetSolver(), Duration.ofMillis(10)).solve(ids, prices, 500);
+
+        assertEquals(Strategy.BITSET, solution.getStrategy());
+        assertTrue(solution.isExact());
+    }
+
+    @Test
+    public void rollingSolve_validEntrySet_shouldUseLessMemoryThanMatrix() {
+        String[] ids = {"MLA1", "MLA2", "MLA3", "MLA4", "MLA5"};
+        int[] prices = {10000, 21000, 26000, 8000, 9000};
+
+        Solution matrix = matrixSolver.solve(ids, prices, 50000);
+        Solution rolling = new RollingSolver().solve(ids, prices, 50000);
+
+        assertIterableEquals(matrix.getItemsId(), rolling.getItemsId());
+        assertTrue(rolling.getPeakMemory() < matrix.getPeakMemory());
+    }
+
+    private static String[] randomIds(int itemsNumber) {
+        String[] ids = new String[itemsNumber];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            ids[item] = "MLA" + item;
+        }
+
+        return ids;
+    }
+
+    private static int[] randomPrices(Random random, int itemsNumber, int couponValue) {
+        int[] prices = new int[itemsNumber];
+
+        for (int item = 0; item < itemsNumber; item++) {
+            prices[item] = 1 + random.nextInt(couponValue);
+        }
+
+        return prices;
+    }
+
+    private static long total(String[] ids, int[] prices, Solution solution) {
+        long total = 0;
+
+        for (int item = 0; item < ids.length; item++) {
+            if (solution.getItemsId().contains(ids[item])) {
+                total += prices[item];
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Checks that the given solver returns the very same items as the {@link MatrixSolver} for
+     * a set of random entries.
+     *
+     * @param couponSolver the solver to check.
+     */
+    private void assertSameItemsAsMatrix(CouponSolver couponSolver) {
+        Random random = new Random(42);
+
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int itemsNumber = 1 + random.nextInt(12);
+            int couponValue = 1 + random.nextInt(3000);
+            String[] ids = new String[itemsNumber];
+            int[] prices = new int[itemsNumber];
+
+            for (int item = 0; item < itemsNumber; item++) {
+                ids[item] = "MLA" + item;
+                prices[item] = random.nextInt(couponValue + 1);
+            }
+
+            Solution expected = matrixSolver.solve(ids, prices, couponValue);
+            Solution actual = couponSolver.solve(ids, prices, couponValue);
+            assertIterableEquals(expected.getItemsId(), actual.getItemsId());
+        }
+    }
+}